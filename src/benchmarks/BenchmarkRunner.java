@@ -0,0 +1,106 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal JMH-style harness: timed warmup, fixed number of measured iterations, batch size calibrated
+ * so that one iteration lasts roughly {@code iterationMillis}, results consumed through a sink.
+ */
+public final class BenchmarkRunner {
+    /**
+     * Performs {@code operations} benchmarked operations and returns any value derived from them,
+     * which is consumed so the JIT cannot drop the work.
+     */
+    @FunctionalInterface
+    public interface Operation {
+        double run(int operations) throws Exception;
+    }
+
+    public record Result(String benchmark, String params, long operations, double nsPerOp, double error) {
+        public String toJson() {
+            return String.format(Locale.ROOT,
+                    "{\"benchmark\":\"%s\",\"params\":\"%s\",\"operations\":%d,\"nsPerOp\":%.3f,\"error\":%.3f}",
+                    benchmark, params, operations, nsPerOp, error);
+        }
+    }
+
+    private static volatile double sink;
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+    private final Pattern filter;
+    private final List<Result> results = new ArrayList<>();
+
+    public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis, String filter) {
+        if (warmupIterations < 0 || measurementIterations < 1 || iterationMillis < 1) {
+            throw new IllegalArgumentException("Invalid benchmark settings");
+        }
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+        this.filter = filter == null ? null : Pattern.compile(filter);
+    }
+
+    public void run(String benchmark, String params, Operation operation) throws Exception {
+        String id = params.isEmpty() ? benchmark : benchmark + ":" + params;
+        if (filter != null && !filter.matcher(id).find()) {
+            return;
+        }
+        int batch = calibrate(operation);
+        for (int i = 0; i < warmupIterations; i++) {
+            sink += operation.run(batch);
+        }
+        double[] samples = new double[measurementIterations];
+        for (int i = 0; i < measurementIterations; i++) {
+            long start = System.nanoTime();
+            sink += operation.run(batch);
+            samples[i] = (double) (System.nanoTime() - start) / batch;
+        }
+        double mean = 0.0;
+        for (double sample : samples) {
+            mean += sample;
+        }
+        mean /= samples.length;
+        double variance = 0.0;
+        for (double sample : samples) {
+            variance += (sample - mean) * (sample - mean);
+        }
+        double error = samples.length > 1 ? Math.sqrt(variance / (samples.length - 1)) : 0.0;
+        Result result = new Result(benchmark, params, (long) batch * measurementIterations, mean, error);
+        results.add(result);
+        System.err.println(result.toJson());
+    }
+
+    private int calibrate(Operation operation) throws Exception {
+        int batch = 1;
+        while (true) {
+            long start = System.nanoTime();
+            sink += operation.run(batch);
+            long elapsed = System.nanoTime() - start;
+            if (elapsed >= iterationNanos / 4 || batch >= Integer.MAX_VALUE / 4) {
+                return (int) Math.max(1, Math.min(Integer.MAX_VALUE, (double) batch * iterationNanos / Math.max(elapsed, 1)));
+            }
+            batch *= 2;
+        }
+    }
+
+    public List<Result> getResults() {
+        return results;
+    }
+
+    public String toJson() {
+        StringBuilder builder = new StringBuilder("[\n");
+        for (int i = 0; i < results.size(); i++) {
+            builder.append("  ").append(results.get(i).toJson());
+            if (i < results.size() - 1) {
+                builder.append(',');
+            }
+            builder.append('\n');
+        }
+        return builder.append("]\n").toString();
+    }
+}
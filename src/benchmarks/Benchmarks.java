@@ -0,0 +1,441 @@
+package benchmarks;
+
+import functions.ArrayTabulatedFunction;
+import functions.ChunkedTabulatedFunction;
+import functions.Function;
+import functions.FunctionPoint;
+import functions.Functions;
+import functions.LinkedListTabulatedFunction;
+import functions.TabulatedFunction;
+import functions.TabulatedFunctions;
+import functions.basic.Exp;
+import functions.basic.Log;
+import functions.basic.Sin;
+import functions.meta.Composition;
+import functions.meta.Power;
+import functions.meta.Scale;
+import functions.meta.Shift;
+import functions.meta.Sum;
+import threads.IntegrationProcessor;
+import threads.OnePlaceSemaphore;
+import threads.Task;
+import threads.TaskPublisher;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Benchmark suite for the functions and threads packages.
+ * <p>
+ * Usage: {@code java -cp out benchmarks.Benchmarks [--out results.json] [--filter regex] [--quick]}.
+ * Results are printed as JSON, one object per benchmark, so runs of different releases can be diffed.
+ */
+public final class Benchmarks {
+    private static final int[] SIZES = {100, 1_000, 10_000};
+    private static final double GOLDEN = 0.6180339887498949;
+
+    private Benchmarks() {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    public static void main(String[] args) throws Exception {
+        String out = null;
+        String filter = null;
+        boolean quick = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out" -> out = args[++i];
+                case "--filter" -> filter = args[++i];
+                case "--quick" -> quick = true;
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        BenchmarkRunner runner = quick
+                ? new BenchmarkRunner(2, 3, 100, filter)
+                : new BenchmarkRunner(5, 10, 500, filter);
+
+        tabulated(runner);
+        rangeQueries(runner);
+        integration(runner);
+        io(runner);
+        serialization(runner);
+        handoff(runner);
+
+        String json = runner.toJson();
+        if (out == null) {
+            System.out.print(json);
+        } else {
+            Files.writeString(Path.of(out), json, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static TabulatedFunction create(String kind, int size) {
+        TabulatedFunction source = TabulatedFunctions.tabulate(new Sin(), 0.0, 10.0, size);
+        if (kind.equals("array")) {
+            return source;
+        }
+        FunctionPoint[] points = new FunctionPoint[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = source.getPoint(i);
+        }
+        return kind.equals("chunked") ? new ChunkedTabulatedFunction(points) : new LinkedListTabulatedFunction(points);
+    }
+
+    static void tabulated(BenchmarkRunner runner) throws Exception {
+        for (String kind : new String[]{"array", "linkedList", "chunked"}) {
+            for (int size : SIZES) {
+                String params = "impl=" + kind + ",size=" + size;
+                TabulatedFunction function = create(kind, size);
+                double left = function.getLeftDomainBorder();
+                double width = function.getRightDomainBorder() - left;
+
+                runner.run("tabulated.getFunctionValue", params, operations -> {
+                    double sum = 0.0;
+                    double u = 0.0;
+                    for (int i = 0; i < operations; i++) {
+                        u += GOLDEN;
+                        u -= (int) u;
+                        sum += function.getFunctionValue(left + u * width);
+                    }
+                    return sum;
+                });
+
+                runner.run("tabulated.addDeletePoint", params, operations -> {
+                    double u = 0.0;
+                    for (int i = 0; i < operations; i++) {
+                        u += GOLDEN;
+                        u -= (int) u;
+                        int index = (int) (u * (size - 1));
+                        double x = 0.5 * (function.getPointX(index) + function.getPointX(index + 1));
+                        function.addPoint(new FunctionPoint(x, 0.0));
+                        function.deletePoint(index + 1);
+                    }
+                    return function.getPointsCount();
+                });
+            }
+        }
+    }
+
+    static void rangeQueries(BenchmarkRunner runner) throws Exception {
+        for (boolean indexed : new boolean[]{false, true}) {
+            for (int size : SIZES) {
+                String params = "indexed=" + indexed + ",size=" + size;
+                ArrayTabulatedFunction function = (ArrayTabulatedFunction) create("array", size);
+                function.setIndexed(indexed);
+                double left = function.getLeftDomainBorder();
+                double width = function.getRightDomainBorder() - left;
+
+                runner.run("tabulated.setYAndIntegrate", params, operations -> {
+                    double sum = 0.0;
+                    double u = 0.0;
+                    for (int i = 0; i < operations; i++) {
+                        u += GOLDEN;
+                        u -= (int) u;
+                        function.setPointY((int) (u * size), u);
+                        double a = left + u * width * 0.5;
+                        sum += function.integrate(a, a + width * 0.5) + function.getMaxY(a, a + width * 0.5);
+                    }
+                    return sum;
+                });
+
+                if (indexed) {
+                    runner.run("tabulated.addDeletePoint", "impl=array," + params, operations -> {
+                        double u = 0.0;
+                        for (int i = 0; i < operations; i++) {
+                            u += GOLDEN;
+                            u -= (int) u;
+                            int index = (int) (u * (size - 1));
+                            double x = 0.5 * (function.getPointX(index) + function.getPointX(index + 1));
+                            function.addPoint(new FunctionPoint(x, 0.0));
+                            function.deletePoint(index + 1);
+                        }
+                        return function.getPointsCount();
+                    });
+                }
+            }
+        }
+
+        // The chunked function keeps its range summaries in the tree nodes, so it has no indexed flag.
+        for (int size : SIZES) {
+            ChunkedTabulatedFunction function = (ChunkedTabulatedFunction) create("chunked", size);
+            double left = function.getLeftDomainBorder();
+            double width = function.getRightDomainBorder() - left;
+            runner.run("tabulated.setYAndIntegrate", "impl=chunked,size=" + size, operations -> {
+                double sum = 0.0;
+                double u = 0.0;
+                for (int i = 0; i < operations; i++) {
+                    u += GOLDEN;
+                    u -= (int) u;
+                    function.setPointY((int) (u * size), u);
+                    double a = left + u * width * 0.5;
+                    sum += function.integrate(a, a + width * 0.5) + function.getMaxY(a, a + width * 0.5);
+                }
+                return sum;
+            });
+        }
+    }
+
+    static void integration(BenchmarkRunner runner) throws Exception {
+        Function exp = new Exp();
+        Function log = new Log(3.0);
+        Function tree = new Sum(
+                new Composition(new Exp(), new Scale(new Sin(), 1.0, 0.5)),
+                new Power(new Log(2.0), 2.0));
+
+        runner.run("integrate", "function=exp,points=1000", operations -> {
+            double sum = 0.0;
+            for (int i = 0; i < operations; i++) {
+                sum += Functions.integrate(exp, 0.0, 1.0, 1e-3);
+            }
+            return sum;
+        });
+        runner.run("integrate", "function=log,points=10000", operations -> {
+            double sum = 0.0;
+            for (int i = 0; i < operations; i++) {
+                sum += Functions.integrate(log, 1.0, 101.0, 1e-2);
+            }
+            return sum;
+        });
+        runner.run("integrate", "function=metaTree,points=10000", operations -> {
+            double sum = 0.0;
+            for (int i = 0; i < operations; i++) {
+                sum += Functions.integrate(tree, 1.0, 101.0, 1e-2);
+            }
+            return sum;
+        });
+
+        // Generator-like overlapping intervals: left in [1; 100], right in [100; 200].
+        double[] lefts = new double[100];
+        double[] rights = new double[100];
+        for (int i = 0; i < lefts.length; i++) {
+            lefts[i] = 1.0 + 99.0 * ((i * GOLDEN) % 1.0);
+            rights[i] = 100.0 + 100.0 * ((i * GOLDEN * GOLDEN) % 1.0);
+        }
+        runner.run("integrate.intervals", "function=log,intervals=100,mode=each", operations -> {
+            double sum = 0.0;
+            for (int i = 0; i < operations; i++) {
+                for (int j = 0; j < lefts.length; j++) {
+                    sum += Functions.integrate(log, lefts[j], rights[j], 1e-2);
+                }
+            }
+            return sum;
+        });
+        runner.run("integrate.intervals", "function=log,intervals=100,mode=all", operations -> {
+            double sum = 0.0;
+            for (int i = 0; i < operations; i++) {
+                sum += Functions.integrateAll(log, lefts, rights, 1e-2)[0];
+            }
+            return sum;
+        });
+
+        // A parameter sweep at a shared step: logarithms of different bases, scaled, shifted and squared.
+        Function[] family = logarithmFamily(400);
+        double[] familyLefts = new double[family.length];
+        double[] familyRights = new double[family.length];
+        double[] familySteps = new double[family.length];
+        for (int i = 0; i < family.length; i++) {
+            familyLefts[i] = 1.0 + 99.0 * ((i * GOLDEN) % 1.0);
+            familyRights[i] = 100.0 + 100.0 * ((i * GOLDEN * GOLDEN) % 1.0);
+            familySteps[i] = 1e-2;
+        }
+        runner.run("integrate.batch", "family=log,tasks=400,mode=each", operations -> {
+            double sum = 0.0;
+            for (int i = 0; i < operations; i++) {
+                for (int j = 0; j < family.length; j++) {
+                    sum += Functions.integrate(family[j], familyLefts[j], familyRights[j], familySteps[j]);
+                }
+            }
+            return sum;
+        });
+        runner.run("integrate.batch", "family=log,tasks=400,mode=batch", operations -> {
+            double sum = 0.0;
+            for (int i = 0; i < operations; i++) {
+                sum += Functions.integrateBatch(family, familyLefts, familyRights, familySteps)[0];
+            }
+            return sum;
+        });
+    }
+
+    private static Function[] logarithmFamily(int count) {
+        Function[] family = new Function[count];
+        for (int i = 0; i < count; i++) {
+            Function log = new Log(2.0 + i % 9);
+            family[i] = switch (i % 4) {
+                case 0 -> log;
+                case 1 -> new Scale(log, 1.0, 0.5 + i % 5);
+                case 2 -> new Shift(log, 0.0, i % 7);
+                default -> new Power(new Scale(log, 1.0, 1.0 + i % 3), 2.0);
+            };
+        }
+        return family;
+    }
+
+    static void io(BenchmarkRunner runner) throws Exception {
+        for (int size : SIZES) {
+            String params = "size=" + size;
+            TabulatedFunction function = create("array", size);
+
+            runner.run("io.binaryRoundTrip", params, operations -> {
+                double sum = 0.0;
+                for (int i = 0; i < operations; i++) {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream(4 + 16 * size);
+                    TabulatedFunctions.outputTabulatedFunction(function, bytes);
+                    TabulatedFunction copy = TabulatedFunctions.inputTabulatedFunction(
+                            new ByteArrayInputStream(bytes.toByteArray()));
+                    sum += copy.getPointsCount();
+                }
+                return sum;
+            });
+
+            runner.run("io.textRoundTrip", params, operations -> {
+                double sum = 0.0;
+                for (int i = 0; i < operations; i++) {
+                    Writer text = new StringWriter(24 * size);
+                    TabulatedFunctions.writeTabulatedFunction(function, text);
+                    TabulatedFunction copy = TabulatedFunctions.readTabulatedFunction(new StringReader(text.toString()));
+                    sum += copy.getPointsCount();
+                }
+                return sum;
+            });
+        }
+    }
+
+    private static byte[] serialize(Object object) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws Exception {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+    static void serialization(BenchmarkRunner runner) throws Exception {
+        for (String kind : new String[]{"array", "array-irregular", "linkedList", "chunked"}) {
+            for (int size : SIZES) {
+                TabulatedFunction function = create(kind.equals("array-irregular") ? "array" : kind, size);
+                if (kind.equals("array-irregular")) {
+                    for (int i = 1; i < size - 1; i++) {
+                        function.setPointX(i, function.getPointX(i) + 1e-3 / size);
+                    }
+                }
+                String params = "impl=" + kind + ",size=" + size + ",bytes=" + serialize(function).length;
+                runner.run("serialization.roundTrip", params, operations -> {
+                    double sum = 0.0;
+                    for (int i = 0; i < operations; i++) {
+                        TabulatedFunction copy = (TabulatedFunction) deserialize(serialize(function));
+                        sum += copy.getPointsCount();
+                    }
+                    return sum;
+                });
+            }
+        }
+    }
+
+    static void handoff(BenchmarkRunner runner) throws Exception {
+        Function log = new Log(2.0);
+        runner.run("threads.semaphoreHandoff", "", operations -> {
+            Task task = new Task(operations);
+            OnePlaceSemaphore semaphore = new OnePlaceSemaphore();
+            double[] consumed = new double[1];
+            Thread consumer = new Thread(() -> {
+                try {
+                    for (int i = 0; i < operations; i++) {
+                        semaphore.beginRead();
+                        consumed[0] += task.snapshot().step();
+                        semaphore.endRead();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            consumer.start();
+            for (int i = 0; i < operations; i++) {
+                semaphore.beginWrite();
+                task.update(log, 1.0, 2.0, i);
+                semaphore.endWrite();
+            }
+            consumer.join();
+            return consumed[0];
+        });
+
+        runner.run("threads.taskHandoff", "", operations -> {
+            Task task = new Task(operations);
+            double[] consumed = new double[1];
+            Thread consumer = new Thread(() -> {
+                try {
+                    for (int i = 0; i < operations; i++) {
+                        consumed[0] += task.consume().step();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            consumer.start();
+            for (int i = 0; i < operations; i++) {
+                task.produce(log, 1.0, 2.0, i);
+            }
+            consumer.join();
+            return consumed[0];
+        });
+
+        for (int batchSize : new int[]{1, 64}) {
+            runner.run("threads.flowHandoff", "batch=" + batchSize, operations -> {
+                DoubleAdder consumed = new DoubleAdder();
+                try (IntegrationProcessor processor = new IntegrationProcessor(1, 4)) {
+                    CompletableFuture<Void> done = processor.consume(batch -> {
+                        for (IntegrationProcessor.Result result : batch) {
+                            consumed.add(result.value());
+                        }
+                    });
+                    try (TaskPublisher publisher = new TaskPublisher(batchSize, 4)) {
+                        publisher.subscribe(processor);
+                        for (int i = 0; i < operations; i++) {
+                            publisher.publish(new Task.TaskData(log, 1.0, 2.0, 1.0, i));
+                        }
+                    }
+                    done.get();
+                }
+                return consumed.sum();
+            });
+        }
+
+        // Family tasks through the pipeline, integrated task by task or as families per batch.
+        Function[] family = logarithmFamily(64);
+        for (boolean familyBatching : new boolean[]{false, true}) {
+            runner.run("threads.flowFamilies", "batch=64,familyBatching=" + familyBatching, operations -> {
+                DoubleAdder consumed = new DoubleAdder();
+                try (IntegrationProcessor processor = new IntegrationProcessor(1, 4, familyBatching)) {
+                    CompletableFuture<Void> done = processor.consume(batch -> {
+                        for (IntegrationProcessor.Result result : batch) {
+                            consumed.add(result.value());
+                        }
+                    });
+                    try (TaskPublisher publisher = new TaskPublisher(64, 4)) {
+                        publisher.subscribe(processor);
+                        for (int i = 0; i < operations; i++) {
+                            publisher.publish(new Task.TaskData(family[i % family.length], 1.0, 11.0, 1e-2, i));
+                        }
+                    }
+                    done.get();
+                }
+                return consumed.sum();
+            });
+        }
+    }
+
+}
@@ -1,13 +1,37 @@
 package functions;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.IntToDoubleFunction;
 
 public class ArrayTabulatedFunction implements TabulatedFunction, Serializable, Cloneable {
-    private static final long serialVersionUID = 1L;
+    // Version 2: points are written as packed columns by writeObject instead of a FunctionPoint array.
+    private static final long serialVersionUID = 2L;
     private static final double EPS = Math.ulp(1.0);
+    // Doubles per buffered chunk of a serialized column.
+    private static final int COLUMN_CHUNK = 1024;
+    private static final AtomicReferenceFieldUpdater<ArrayTabulatedFunction, AtomicInteger> OWNERS =
+            AtomicReferenceFieldUpdater.newUpdater(ArrayTabulatedFunction.class, AtomicInteger.class, "owners");
 
-    private FunctionPoint[] points;
+    private transient FunctionPoint[] points;
     private int pointsCount;
+    // Number of instances sharing points after clone(); null while the storage is exclusively owned.
+    private transient volatile AtomicInteger owners;
+    // Raw sum of Fingerprints terms, valid while fingerprintValid is set; replacing a point updates it in place.
+    // The flag is volatile and set after the sum, so threads only reading a shared table never see a stale sum.
+    private transient long fingerprintSum;
+    private transient volatile boolean fingerprintValid;
+    private boolean indexed;
+    // Present while indexed; shared with clones together with points and copied by ensureExclusiveStorage().
+    private transient PointIndex index;
 
     public ArrayTabulatedFunction(double leftX, double rightX, int pointsCount) {
         validateBorders(leftX, rightX, pointsCount);
@@ -56,6 +80,34 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
         }
     }
 
+    private void ensureExclusiveStorage() {
+        AtomicInteger shared = owners;
+        if (shared == null) {
+            return;
+        }
+        // Copy while still counted, so a sharer that leaves later never writes to storage being copied.
+        // Two sharers leaving at once may both copy, which is harmless.
+        if (shared.get() > 1) {
+            FunctionPoint[] copy = new FunctionPoint[points.length];
+            for (int i = 0; i < pointsCount; i++) {
+                copy[i] = points[i].clone();
+            }
+            points = copy;
+            if (index != null) {
+                index = index.clone();
+            }
+        }
+        shared.decrementAndGet();
+        owners = null;
+    }
+
+    private void replaceTerm(int index, double x, double y) {
+        if (fingerprintValid) {
+            FunctionPoint old = points[index];
+            fingerprintSum += Fingerprints.term(index, x, y) - Fingerprints.term(index, old.getX(), old.getY());
+        }
+    }
+
     private void checkIndex(int index) {
         if (index < 0 || index >= pointsCount) {
             throw new FunctionPointIndexOutOfBoundsException("Index: " + index);
@@ -96,7 +148,10 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
     public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
         checkIndex(index);
         ensureXFits(index, point.getX());
+        ensureExclusiveStorage();
+        replaceTerm(index, point.getX(), point.getY());
         points[index] = point.clone();
+        refreshIndex(index);
     }
 
     @Override
@@ -109,7 +164,10 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
     public void setPointX(int index, double x) throws InappropriateFunctionPointException {
         checkIndex(index);
         ensureXFits(index, x);
+        ensureExclusiveStorage();
+        replaceTerm(index, x, points[index].getY());
         points[index].setX(x);
+        refreshIndex(index);
     }
 
     @Override
@@ -121,7 +179,10 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
     @Override
     public void setPointY(int index, double y) {
         checkIndex(index);
+        ensureExclusiveStorage();
+        replaceTerm(index, points[index].getX(), y);
         points[index].setY(y);
+        refreshIndex(index);
     }
 
     @Override
@@ -130,11 +191,19 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
         if (pointsCount < 3) {
             throw new IllegalStateException("Function must keep at least two points");
         }
+        ensureExclusiveStorage();
+        fingerprintValid = false;
         for (int i = index; i < pointsCount - 1; i++) {
             points[i] = points[i + 1];
         }
         points[pointsCount - 1] = null;
         pointsCount--;
+        if (this.index != null) {
+            this.index.delete(index, pointsCount);
+            if (index > 0 && index < pointsCount) {
+                this.index.setArea(index - 1, segmentArea(index - 1));
+            }
+        }
     }
 
     @Override
@@ -143,12 +212,28 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
         if (insertIndex < pointsCount && Math.abs(points[insertIndex].getX() - point.getX()) <= EPS) {
             throw new InappropriateFunctionPointException("Point with same X already exists");
         }
+        ensureExclusiveStorage();
+        fingerprintValid = false;
         ensureCapacity(pointsCount + 1);
         for (int i = pointsCount; i > insertIndex; i--) {
             points[i] = points[i - 1];
         }
         points[insertIndex] = point.clone();
         pointsCount++;
+        if (index == null) {
+            return;
+        }
+        if (!index.fits(pointsCount)) {
+            rebuildIndex();
+            return;
+        }
+        index.insert(insertIndex, pointsCount, point.getY());
+        if (insertIndex > 0) {
+            index.setArea(insertIndex - 1, segmentArea(insertIndex - 1));
+        }
+        if (insertIndex < pointsCount - 1) {
+            index.setArea(insertIndex, segmentArea(insertIndex));
+        }
     }
 
     @SuppressWarnings("ManualArrayToCollectionCopy")
@@ -205,6 +290,213 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
         return Double.NaN;
     }
 
+    /**
+     * Enables or disables the range index. While enabled, {@link #integrate}, {@link #getMinY} and {@link #getMaxY}
+     * take O(log n) and point replacements update the index in O(log n). Insertions and deletions shift the leaves
+     * after the changed point like the array itself, recomputing only their ancestors; an insertion rebuilds the
+     * index when it outgrows its capacity, which doubles. Without the index these queries scan the range.
+     */
+    public void setIndexed(boolean indexed) {
+        this.indexed = indexed;
+        index = null;
+        rebuildIndex();
+    }
+
+    public boolean isIndexed() {
+        return indexed;
+    }
+
+    private void rebuildIndex() {
+        if (!indexed) {
+            return;
+        }
+        double[] xs = new double[pointsCount];
+        double[] ys = new double[pointsCount];
+        copyPoints(xs, ys);
+        index = new PointIndex(xs, ys, pointsCount);
+    }
+
+    private void refreshIndex(int point) {
+        if (index == null) {
+            return;
+        }
+        index.setY(point, points[point].getY());
+        if (point > 0) {
+            index.setArea(point - 1, segmentArea(point - 1));
+        }
+        if (point < pointsCount - 1) {
+            index.setArea(point, segmentArea(point));
+        }
+    }
+
+    private double segmentArea(int segment) {
+        FunctionPoint left = points[segment];
+        FunctionPoint right = points[segment + 1];
+        return PointIndex.area(left.getX(), left.getY(), right.getX(), right.getY());
+    }
+
+    /**
+     * Index of the segment containing x: the last point with X not greater than x, limited to the last segment.
+     */
+    private int segmentOf(double x) {
+        int low = 0;
+        int high = pointsCount - 1;
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (points[mid].getX() <= x) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private double interpolate(int segment, double x) {
+        FunctionPoint left = points[segment];
+        FunctionPoint right = points[segment + 1];
+        double k = (x - left.getX()) / (right.getX() - left.getX());
+        return left.getY() + k * (right.getY() - left.getY());
+    }
+
+    private void checkRange(double leftX, double rightX) {
+        if (!(leftX <= rightX)) {
+            throw new IllegalArgumentException("Right border must not be less than left border");
+        }
+        if (leftX < getLeftDomainBorder() - EPS || rightX > getRightDomainBorder() + EPS) {
+            throw new IllegalArgumentException("Range is outside function domain");
+        }
+    }
+
+    /**
+     * Exact integral of the piecewise linear function on [leftX; rightX].
+     *
+     * @throws IllegalArgumentException if the range is empty or outside the domain
+     */
+    public double integrate(double leftX, double rightX) {
+        checkRange(leftX, rightX);
+        double a = Math.max(leftX, getLeftDomainBorder());
+        double b = Math.min(rightX, getRightDomainBorder());
+        if (!(a < b)) {
+            return 0.0;
+        }
+        int first = segmentOf(a);
+        int last = segmentOf(b);
+        double ya = interpolate(first, a);
+        double yb = interpolate(last, b);
+        if (first == last) {
+            return PointIndex.area(a, ya, b, yb);
+        }
+        FunctionPoint firstEnd = points[first + 1];
+        FunctionPoint lastStart = points[last];
+        double result = PointIndex.area(a, ya, firstEnd.getX(), firstEnd.getY())
+                + PointIndex.area(lastStart.getX(), lastStart.getY(), b, yb);
+        if (index != null) {
+            return result + index.sumAreas(first + 1, last);
+        }
+        for (int i = first + 1; i < last; i++) {
+            result += segmentArea(i);
+        }
+        return result;
+    }
+
+    /**
+     * Minimum of the piecewise linear function on [leftX; rightX].
+     *
+     * @throws IllegalArgumentException if the range is empty or outside the domain
+     */
+    public double getMinY(double leftX, double rightX) {
+        return extremum(leftX, rightX, false);
+    }
+
+    /**
+     * Maximum of the piecewise linear function on [leftX; rightX].
+     *
+     * @throws IllegalArgumentException if the range is empty or outside the domain
+     */
+    public double getMaxY(double leftX, double rightX) {
+        return extremum(leftX, rightX, true);
+    }
+
+    // A piecewise linear function reaches its extremes at the range ends or at points inside the range.
+    private double extremum(double leftX, double rightX, boolean max) {
+        checkRange(leftX, rightX);
+        double a = Math.max(leftX, getLeftDomainBorder());
+        double b = Math.min(rightX, getRightDomainBorder());
+        int first = segmentOf(a);
+        int last = segmentOf(b);
+        double ya = interpolate(first, a);
+        double yb = interpolate(last, b);
+        double result = max ? Math.max(ya, yb) : Math.min(ya, yb);
+        int from = first + 1;
+        int to = last + 1;
+        if (from >= to) {
+            return result;
+        }
+        if (index != null) {
+            return max ? Math.max(result, index.maxY(from, to)) : Math.min(result, index.minY(from, to));
+        }
+        for (int i = from; i < to; i++) {
+            double y = points[i].getY();
+            result = max ? Math.max(result, y) : Math.min(result, y);
+        }
+        return result;
+    }
+
+    private void checkDestination(double[] destination) {
+        if (destination.length < pointsCount) {
+            throw new IllegalArgumentException("Destination is shorter than points count");
+        }
+    }
+
+    @Override
+    public void copyXs(double[] destination) {
+        checkDestination(destination);
+        for (int i = 0; i < pointsCount; i++) {
+            destination[i] = points[i].getX();
+        }
+    }
+
+    @Override
+    public void copyYs(double[] destination) {
+        checkDestination(destination);
+        for (int i = 0; i < pointsCount; i++) {
+            destination[i] = points[i].getY();
+        }
+    }
+
+    @Override
+    public int copyPoints(double[] xs, double[] ys) {
+        if (xs.length < pointsCount || ys.length < pointsCount) {
+            return pointsCount;
+        }
+        for (int i = 0; i < pointsCount; i++) {
+            xs[i] = points[i].getX();
+            ys[i] = points[i].getY();
+        }
+        return pointsCount;
+    }
+
+    @Override
+    public void forEachPoint(DoubleBinaryConsumer action) {
+        for (int i = 0; i < pointsCount; i++) {
+            action.accept(points[i].getX(), points[i].getY());
+        }
+    }
+
+    @Override
+    public long fingerprint() {
+        if (!fingerprintValid) {
+            long sum = 0L;
+            for (int i = 0; i < pointsCount; i++) {
+                sum += Fingerprints.term(i, points[i].getX(), points[i].getY());
+            }
+            fingerprintSum = sum;
+            fingerprintValid = true;
+        }
+        return Fingerprints.finish(fingerprintSum, pointsCount);
+    }
+
     private static boolean pointsEqual(FunctionPoint first, FunctionPoint second) {
         return Double.doubleToLongBits(first.getX()) == Double.doubleToLongBits(second.getX())
                 && Double.doubleToLongBits(first.getY()) == Double.doubleToLongBits(second.getY());
@@ -232,7 +524,8 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
             return false;
         }
         if (obj instanceof ArrayTabulatedFunction other) {
-            if (pointsCount != other.pointsCount) {
+            if (pointsCount != other.pointsCount
+                    || fingerprintValid && other.fingerprintValid && fingerprintSum != other.fingerprintSum) {
                 return false;
             }
             for (int i = 0; i < pointsCount; i++) {
@@ -248,32 +541,121 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
         if (pointsCount != other.getPointsCount()) {
             return false;
         }
-        for (int i = 0; i < pointsCount; i++) {
-            if (!pointsEqual(points[i], other.getPoint(i))) {
-                return false;
-            }
-        }
-        return true;
+        return PointColumns.matches(other, pointsCount, (i, x, y) ->
+                PointColumns.sameBits(points[i].getX(), x) && PointColumns.sameBits(points[i].getY(), y));
     }
 
     @Override
     public int hashCode() {
-        int hash = pointsCount;
+        return Fingerprints.toHashCode(fingerprint());
+    }
+
+    /**
+     * Writes the X column and then the Y column as primitives, without the unused capacity.
+     * If X is exactly the grid {@code left + step * i} built by the border constructors, only left and step are written.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        double left = points[0].getX();
+        double step = (points[pointsCount - 1].getX() - left) / (pointsCount - 1);
+        boolean uniform = true;
+        for (int i = 1; i < pointsCount && uniform; i++) {
+            uniform = Double.doubleToLongBits(points[i].getX()) == Double.doubleToLongBits(left + step * i);
+        }
+        out.writeBoolean(uniform);
+        if (uniform) {
+            out.writeDouble(left);
+            out.writeDouble(step);
+        } else {
+            writeColumn(out, pointsCount, i -> points[i].getX());
+        }
+        writeColumn(out, pointsCount, i -> points[i].getY());
+    }
+
+    // Columns go through a fixed-size buffer, so no buffer size is derived from the points count.
+    private static void writeColumn(ObjectOutputStream out, int count, IntToDoubleFunction values)
+            throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(Double.BYTES * Math.min(count, COLUMN_CHUNK));
+        for (int i = 0; i < count; i++) {
+            if (!chunk.hasRemaining()) {
+                out.write(chunk.array(), 0, chunk.position());
+                chunk.clear();
+            }
+            chunk.putDouble(values.applyAsDouble(i));
+        }
+        out.write(chunk.array(), 0, chunk.position());
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (pointsCount < 2) {
+            throw new InvalidObjectException("Function requires at least two points");
+        }
+        boolean uniform = in.readBoolean();
+        double left = 0.0;
+        double step = 0.0;
+        double[] xs = null;
+        if (uniform) {
+            left = in.readDouble();
+            step = in.readDouble();
+        } else {
+            xs = readColumn(in, pointsCount);
+        }
+        double[] ys = readColumn(in, pointsCount);
+        if (uniform) {
+            // The count is backed by the Y column now, so the X column can be allocated in full.
+            xs = new double[pointsCount];
+            xs[0] = left;
+            for (int i = 1; i < pointsCount; i++) {
+                xs[i] = left + step * i;
+            }
+        }
+        points = new FunctionPoint[pointsCount];
         for (int i = 0; i < pointsCount; i++) {
-            hash ^= points[i].hashCode();
+            points[i] = new FunctionPoint(xs[i], ys[i]);
         }
-        return hash;
+        try {
+            ensureSortedAndUnique();
+        } catch (IllegalArgumentException e) {
+            throw new InvalidObjectException(e.getMessage());
+        }
+        rebuildIndex();
     }
 
+    // The column grows with the data actually read, so a corrupted count ends in EOFException, not a huge allocation.
+    private static double[] readColumn(ObjectInputStream in, int count) throws IOException {
+        byte[] chunk = new byte[Double.BYTES * Math.min(count, COLUMN_CHUNK)];
+        DoubleBuffer doubles = ByteBuffer.wrap(chunk).asDoubleBuffer();
+        double[] column = new double[Math.min(count, COLUMN_CHUNK)];
+        int read = 0;
+        while (read < count) {
+            int length = Math.min(count - read, COLUMN_CHUNK);
+            in.readFully(chunk, 0, Double.BYTES * length);
+            if (read + length > column.length) {
+                column = Arrays.copyOf(column, (int) Math.min(count, Math.max(2L * column.length, read + length)));
+            }
+            doubles.clear();
+            doubles.get(column, read, length);
+            read += length;
+        }
+        return column;
+    }
+
+    /**
+     * Returns a copy sharing the points with this function in O(1).
+     * Whichever of them is modified first copies the storage before the change.
+     */
     @Override
     public ArrayTabulatedFunction clone() {
         try {
-            ArrayTabulatedFunction copy = (ArrayTabulatedFunction) super.clone();
-            copy.points = new FunctionPoint[pointsCount];
-            for (int i = 0; i < pointsCount; i++) {
-                copy.points[i] = points[i].clone();
+            // Cloning only reads the storage, so concurrent clones of one instance must agree on a single counter.
+            AtomicInteger shared = owners;
+            if (shared == null) {
+                OWNERS.compareAndSet(this, null, new AtomicInteger(1));
+                shared = owners;
             }
-            return copy;
+            shared.incrementAndGet();
+            return (ArrayTabulatedFunction) super.clone();
         } catch (CloneNotSupportedException e) {
             throw new AssertionError("Clone should be supported", e);
         }
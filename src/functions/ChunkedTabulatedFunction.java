@@ -0,0 +1,951 @@
+package functions;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Tabulated function stored as a B+-tree of fixed-size primitive chunks.
+ * Branches keep subtree point counts and maximal X of every child, so access by index, lookup by X,
+ * insertion and deletion are O(log n), while points inside a chunk stay contiguous for scans.
+ * Every node also summarizes its subtree for the range queries {@link #integrate}, {@link #getMinY} and
+ * {@link #getMaxY}: a change marks the nodes on its path stale and the next query recomputes only them,
+ * so queries take O(log n) and updates stay O(log n).
+ */
+public class ChunkedTabulatedFunction implements TabulatedFunction, Externalizable, Cloneable {
+    private static final long serialVersionUID = 1L;
+    private static final double EPS = Math.ulp(1.0);
+    private static final int LEAF_CAPACITY = 64;
+    private static final int BRANCH_CAPACITY = 32;
+
+    private abstract static class Node {
+        int size;
+        // Summary of the subtree, valid while not stale: trapezoid areas of its segments, Y range and end points.
+        boolean stale = true;
+        double area;
+        double minY;
+        double maxY;
+        double firstX;
+        double firstY;
+        double lastY;
+
+        abstract int count();
+
+        abstract double maxX();
+
+        abstract Node copy();
+
+        void copySummary(Node source) {
+            stale = source.stale;
+            area = source.area;
+            minY = source.minY;
+            maxY = source.maxY;
+            firstX = source.firstX;
+            firstY = source.firstY;
+            lastY = source.lastY;
+        }
+    }
+
+    private static final class Leaf extends Node {
+        // One spare slot lets an insertion overflow before the leaf is split.
+        final double[] xs = new double[LEAF_CAPACITY + 1];
+        final double[] ys = new double[LEAF_CAPACITY + 1];
+
+        @Override
+        int count() {
+            return size;
+        }
+
+        @Override
+        double maxX() {
+            return xs[size - 1];
+        }
+
+        @Override
+        Leaf copy() {
+            Leaf copy = new Leaf();
+            System.arraycopy(xs, 0, copy.xs, 0, size);
+            System.arraycopy(ys, 0, copy.ys, 0, size);
+            copy.size = size;
+            copy.copySummary(this);
+            return copy;
+        }
+    }
+
+    private static final class Branch extends Node {
+        final Node[] children = new Node[BRANCH_CAPACITY + 1];
+        final double[] maxXs = new double[BRANCH_CAPACITY + 1];
+        int count;
+
+        @Override
+        int count() {
+            return count;
+        }
+
+        @Override
+        double maxX() {
+            return maxXs[count - 1];
+        }
+
+        @Override
+        Branch copy() {
+            Branch copy = new Branch();
+            for (int i = 0; i < count; i++) {
+                copy.children[i] = children[i].copy();
+            }
+            System.arraycopy(maxXs, 0, copy.maxXs, 0, count);
+            copy.count = count;
+            copy.size = size;
+            copy.copySummary(this);
+            return copy;
+        }
+
+        void refresh() {
+            int total = 0;
+            for (int i = 0; i < count; i++) {
+                total += children[i].size;
+                maxXs[i] = children[i].maxX();
+            }
+            size = total;
+        }
+    }
+
+    private Node root;
+    // Raw sum of Fingerprints terms, valid while fingerprintValid is set; replacing a point updates it in place.
+    // The flag is volatile and set after the sum, so threads only reading a shared table never see a stale sum.
+    private long fingerprintSum;
+    private volatile boolean fingerprintValid;
+
+    public ChunkedTabulatedFunction() {
+        root = new Leaf();
+    }
+
+    public ChunkedTabulatedFunction(double leftX, double rightX, int pointsCount) {
+        validateBorders(leftX, rightX, pointsCount);
+        double[] xs = new double[pointsCount];
+        double step = (rightX - leftX) / (pointsCount - 1);
+        for (int i = 0; i < pointsCount; i++) {
+            xs[i] = leftX + step * i;
+        }
+        root = build(xs, new double[pointsCount]);
+    }
+
+    public ChunkedTabulatedFunction(double leftX, double rightX, double[] values) {
+        validateBorders(leftX, rightX, values.length);
+        double[] xs = new double[values.length];
+        double step = (rightX - leftX) / (values.length - 1);
+        for (int i = 0; i < values.length; i++) {
+            xs[i] = leftX + step * i;
+        }
+        root = build(xs, values);
+    }
+
+    public ChunkedTabulatedFunction(FunctionPoint[] sourcePoints) {
+        if (sourcePoints.length < 2) {
+            throw new IllegalArgumentException("At least two points are required");
+        }
+        double[] xs = new double[sourcePoints.length];
+        double[] ys = new double[sourcePoints.length];
+        for (int i = 0; i < sourcePoints.length; i++) {
+            xs[i] = sourcePoints[i].getX();
+            ys[i] = sourcePoints[i].getY();
+            if (i > 0 && !(xs[i] - xs[i - 1] > EPS)) {
+                throw new IllegalArgumentException("Points must be strictly increasing by X");
+            }
+        }
+        root = build(xs, ys);
+    }
+
+    private void validateBorders(double leftX, double rightX, int count) {
+        if (!(rightX - leftX > EPS)) {
+            throw new IllegalArgumentException("left bound must be smaller than right bound");
+        }
+        if (count < 2) {
+            throw new IllegalArgumentException("Function requires at least two points");
+        }
+    }
+
+    // Bulk loading spreads points evenly, so every non-root node is at least half full.
+    private static Node build(double[] xs, double[] ys) {
+        int count = xs.length;
+        int leavesCount = Math.max(1, (count + LEAF_CAPACITY - 1) / LEAF_CAPACITY);
+        Node[] level = new Node[leavesCount];
+        int offset = 0;
+        for (int i = 0; i < leavesCount; i++) {
+            int length = (count - offset) / (leavesCount - i);
+            Leaf leaf = new Leaf();
+            System.arraycopy(xs, offset, leaf.xs, 0, length);
+            System.arraycopy(ys, offset, leaf.ys, 0, length);
+            leaf.size = length;
+            level[i] = leaf;
+            offset += length;
+        }
+        while (level.length > 1) {
+            int branchesCount = (level.length + BRANCH_CAPACITY - 1) / BRANCH_CAPACITY;
+            Node[] upper = new Node[branchesCount];
+            offset = 0;
+            for (int i = 0; i < branchesCount; i++) {
+                int length = (level.length - offset) / (branchesCount - i);
+                Branch branch = new Branch();
+                System.arraycopy(level, offset, branch.children, 0, length);
+                branch.count = length;
+                branch.refresh();
+                upper[i] = branch;
+                offset += length;
+            }
+            level = upper;
+        }
+        return level[0];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= root.size) {
+            throw new FunctionPointIndexOutOfBoundsException("Index: " + index);
+        }
+    }
+
+    private double xAt(int index) {
+        Node node = root;
+        while (node instanceof Branch branch) {
+            int i = 0;
+            while (index >= branch.children[i].size) {
+                index -= branch.children[i].size;
+                i++;
+            }
+            node = branch.children[i];
+        }
+        return ((Leaf) node).xs[index];
+    }
+
+    private double yAt(int index) {
+        Node node = root;
+        while (node instanceof Branch branch) {
+            int i = 0;
+            while (index >= branch.children[i].size) {
+                index -= branch.children[i].size;
+                i++;
+            }
+            node = branch.children[i];
+        }
+        return ((Leaf) node).ys[index];
+    }
+
+    /**
+     * @return number of points with X not greater than {@code x}
+     */
+    private int rank(double x) {
+        Node node = root;
+        int result = 0;
+        while (node instanceof Branch branch) {
+            int i = 0;
+            while (i < branch.count - 1 && branch.maxXs[i] <= x) {
+                result += branch.children[i].size;
+                i++;
+            }
+            node = branch.children[i];
+        }
+        Leaf leaf = (Leaf) node;
+        int low = 0;
+        int high = leaf.size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (leaf.xs[mid] <= x) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return result + low;
+    }
+
+    private void ensureXFits(int index, double x) throws InappropriateFunctionPointException {
+        if (index > 0 && !(x - xAt(index - 1) > EPS)) {
+            throw new InappropriateFunctionPointException("X overlaps previous point");
+        }
+        if (index < root.size - 1 && !(xAt(index + 1) - x > EPS)) {
+            throw new InappropriateFunctionPointException("X overlaps next point");
+        }
+    }
+
+    @Override
+    public double getLeftDomainBorder() {
+        Node node = root;
+        while (node instanceof Branch branch) {
+            node = branch.children[0];
+        }
+        return ((Leaf) node).xs[0];
+    }
+
+    @Override
+    public double getRightDomainBorder() {
+        return root.maxX();
+    }
+
+    @Override
+    public int getPointsCount() {
+        return root.size;
+    }
+
+    @Override
+    public FunctionPoint getPoint(int index) {
+        checkIndex(index);
+        return new FunctionPoint(xAt(index), yAt(index));
+    }
+
+    @Override
+    public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        checkIndex(index);
+        ensureXFits(index, point.getX());
+        replaceTerm(index, point.getX(), point.getY());
+        set(root, index, point.getX(), point.getY(), true);
+    }
+
+    @Override
+    public double getPointX(int index) {
+        checkIndex(index);
+        return xAt(index);
+    }
+
+    @Override
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        checkIndex(index);
+        ensureXFits(index, x);
+        double y = yAt(index);
+        replaceTerm(index, x, y);
+        set(root, index, x, y, true);
+    }
+
+    @Override
+    public double getPointY(int index) {
+        checkIndex(index);
+        return yAt(index);
+    }
+
+    @Override
+    public void setPointY(int index, double y) {
+        checkIndex(index);
+        replaceTerm(index, xAt(index), y);
+        set(root, index, 0.0, y, false);
+    }
+
+    private void replaceTerm(int index, double x, double y) {
+        if (fingerprintValid) {
+            fingerprintSum += Fingerprints.term(index, x, y) - Fingerprints.term(index, xAt(index), yAt(index));
+        }
+    }
+
+    private static void set(Node node, int index, double x, double y, boolean updateX) {
+        node.stale = true;
+        if (node instanceof Leaf leaf) {
+            if (updateX) {
+                leaf.xs[index] = x;
+            }
+            leaf.ys[index] = y;
+            return;
+        }
+        Branch branch = (Branch) node;
+        int i = 0;
+        while (index >= branch.children[i].size) {
+            index -= branch.children[i].size;
+            i++;
+        }
+        set(branch.children[i], index, x, y, updateX);
+        if (updateX) {
+            branch.maxXs[i] = branch.children[i].maxX();
+        }
+    }
+
+    @Override
+    public void deletePoint(int index) {
+        checkIndex(index);
+        if (root.size < 3) {
+            throw new IllegalStateException("Function must keep at least two points");
+        }
+        fingerprintValid = false;
+        delete(root, index);
+        if (root instanceof Branch branch && branch.count == 1) {
+            root = branch.children[0];
+        }
+    }
+
+    private static void delete(Node node, int index) {
+        node.size--;
+        node.stale = true;
+        if (node instanceof Leaf leaf) {
+            System.arraycopy(leaf.xs, index + 1, leaf.xs, index, leaf.size - index);
+            System.arraycopy(leaf.ys, index + 1, leaf.ys, index, leaf.size - index);
+            return;
+        }
+        Branch branch = (Branch) node;
+        int i = 0;
+        while (index >= branch.children[i].size) {
+            index -= branch.children[i].size;
+            i++;
+        }
+        Node child = branch.children[i];
+        delete(child, index);
+        int minimum = child instanceof Leaf ? LEAF_CAPACITY / 2 : BRANCH_CAPACITY / 2;
+        if (child.count() < minimum && branch.count > 1) {
+            rebalance(branch, i > 0 ? i - 1 : i);
+        } else {
+            branch.maxXs[i] = child.maxX();
+        }
+    }
+
+    // Merges children first and first + 1 when they fit into one node, otherwise splits their content evenly.
+    private static void rebalance(Branch branch, int first) {
+        Node left = branch.children[first];
+        Node right = branch.children[first + 1];
+        left.stale = true;
+        right.stale = true;
+        if (left instanceof Leaf leftLeaf) {
+            Leaf rightLeaf = (Leaf) right;
+            int total = leftLeaf.size + rightLeaf.size;
+            if (total <= LEAF_CAPACITY) {
+                System.arraycopy(rightLeaf.xs, 0, leftLeaf.xs, leftLeaf.size, rightLeaf.size);
+                System.arraycopy(rightLeaf.ys, 0, leftLeaf.ys, leftLeaf.size, rightLeaf.size);
+                leftLeaf.size = total;
+                removeChild(branch, first + 1);
+            } else {
+                double[] xs = new double[total];
+                double[] ys = new double[total];
+                System.arraycopy(leftLeaf.xs, 0, xs, 0, leftLeaf.size);
+                System.arraycopy(leftLeaf.ys, 0, ys, 0, leftLeaf.size);
+                System.arraycopy(rightLeaf.xs, 0, xs, leftLeaf.size, rightLeaf.size);
+                System.arraycopy(rightLeaf.ys, 0, ys, leftLeaf.size, rightLeaf.size);
+                int half = total / 2;
+                System.arraycopy(xs, 0, leftLeaf.xs, 0, half);
+                System.arraycopy(ys, 0, leftLeaf.ys, 0, half);
+                System.arraycopy(xs, half, rightLeaf.xs, 0, total - half);
+                System.arraycopy(ys, half, rightLeaf.ys, 0, total - half);
+                leftLeaf.size = half;
+                rightLeaf.size = total - half;
+            }
+        } else {
+            Branch leftBranch = (Branch) left;
+            Branch rightBranch = (Branch) right;
+            int total = leftBranch.count + rightBranch.count;
+            if (total <= BRANCH_CAPACITY) {
+                System.arraycopy(rightBranch.children, 0, leftBranch.children, leftBranch.count, rightBranch.count);
+                leftBranch.count = total;
+                leftBranch.refresh();
+                removeChild(branch, first + 1);
+            } else {
+                Node[] children = new Node[total];
+                System.arraycopy(leftBranch.children, 0, children, 0, leftBranch.count);
+                System.arraycopy(rightBranch.children, 0, children, leftBranch.count, rightBranch.count);
+                int half = total / 2;
+                clearChildren(leftBranch);
+                clearChildren(rightBranch);
+                System.arraycopy(children, 0, leftBranch.children, 0, half);
+                System.arraycopy(children, half, rightBranch.children, 0, total - half);
+                leftBranch.count = half;
+                rightBranch.count = total - half;
+                leftBranch.refresh();
+                rightBranch.refresh();
+            }
+        }
+        for (int i = first; i < Math.min(first + 2, branch.count); i++) {
+            branch.maxXs[i] = branch.children[i].maxX();
+        }
+    }
+
+    private static void clearChildren(Branch branch) {
+        for (int i = 0; i < branch.count; i++) {
+            branch.children[i] = null;
+        }
+    }
+
+    private static void removeChild(Branch branch, int index) {
+        System.arraycopy(branch.children, index + 1, branch.children, index, branch.count - index - 1);
+        System.arraycopy(branch.maxXs, index + 1, branch.maxXs, index, branch.count - index - 1);
+        branch.count--;
+        branch.children[branch.count] = null;
+    }
+
+    @Override
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        double x = point.getX();
+        int index = rank(x);
+        if ((index > 0 && Math.abs(xAt(index - 1) - x) <= EPS)
+                || (index < root.size && Math.abs(xAt(index) - x) <= EPS)) {
+            throw new InappropriateFunctionPointException("Point with same X already exists");
+        }
+        fingerprintValid = false;
+        Node sibling = insert(root, index, x, point.getY());
+        if (sibling != null) {
+            Branch newRoot = new Branch();
+            newRoot.children[0] = root;
+            newRoot.children[1] = sibling;
+            newRoot.count = 2;
+            newRoot.refresh();
+            root = newRoot;
+        }
+    }
+
+    /**
+     * @return new right sibling when the node had to be split, otherwise null
+     */
+    private static Node insert(Node node, int index, double x, double y) {
+        node.stale = true;
+        if (node instanceof Leaf leaf) {
+            System.arraycopy(leaf.xs, index, leaf.xs, index + 1, leaf.size - index);
+            System.arraycopy(leaf.ys, index, leaf.ys, index + 1, leaf.size - index);
+            leaf.xs[index] = x;
+            leaf.ys[index] = y;
+            leaf.size++;
+            if (leaf.size <= LEAF_CAPACITY) {
+                return null;
+            }
+            Leaf sibling = new Leaf();
+            int half = leaf.size / 2;
+            sibling.size = leaf.size - half;
+            System.arraycopy(leaf.xs, half, sibling.xs, 0, sibling.size);
+            System.arraycopy(leaf.ys, half, sibling.ys, 0, sibling.size);
+            leaf.size = half;
+            return sibling;
+        }
+        Branch branch = (Branch) node;
+        int i = 0;
+        while (i < branch.count - 1 && index > branch.children[i].size) {
+            index -= branch.children[i].size;
+            i++;
+        }
+        Node childSibling = insert(branch.children[i], index, x, y);
+        branch.size++;
+        branch.maxXs[i] = branch.children[i].maxX();
+        if (childSibling == null) {
+            return null;
+        }
+        System.arraycopy(branch.children, i + 1, branch.children, i + 2, branch.count - i - 1);
+        System.arraycopy(branch.maxXs, i + 1, branch.maxXs, i + 2, branch.count - i - 1);
+        branch.children[i + 1] = childSibling;
+        branch.maxXs[i + 1] = childSibling.maxX();
+        branch.count++;
+        if (branch.count <= BRANCH_CAPACITY) {
+            return null;
+        }
+        Branch sibling = new Branch();
+        int half = branch.count / 2;
+        sibling.count = branch.count - half;
+        System.arraycopy(branch.children, half, sibling.children, 0, sibling.count);
+        for (int j = half; j < branch.count; j++) {
+            branch.children[j] = null;
+        }
+        branch.count = half;
+        branch.refresh();
+        sibling.refresh();
+        return sibling;
+    }
+
+    @Override
+    public double getFunctionValue(double x) {
+        double left = getLeftDomainBorder();
+        double right = getRightDomainBorder();
+        if (x < left - EPS || x > right + EPS) {
+            return Double.NaN;
+        }
+        if (Math.abs(x - left) <= EPS) {
+            return yAt(0);
+        }
+        if (Math.abs(x - right) <= EPS) {
+            return yAt(root.size - 1);
+        }
+        int high = Math.min(Math.max(rank(x), 1), root.size - 1);
+        double x1 = xAt(high - 1);
+        double x2 = xAt(high);
+        double y1 = yAt(high - 1);
+        double y2 = yAt(high);
+        double k = (x - x1) / (x2 - x1);
+        return y1 + k * (y2 - y1);
+    }
+
+    private void checkRange(double leftX, double rightX) {
+        if (!(leftX <= rightX)) {
+            throw new IllegalArgumentException("Right border must not be less than left border");
+        }
+        if (leftX < getLeftDomainBorder() - EPS || rightX > getRightDomainBorder() + EPS) {
+            throw new IllegalArgumentException("Range is outside function domain");
+        }
+    }
+
+    /**
+     * Index of the segment containing x: the last point with X not greater than x, limited to the last segment.
+     */
+    private int segmentOf(double x) {
+        return Math.min(Math.max(rank(x) - 1, 0), root.size - 2);
+    }
+
+    private double interpolate(int segment, double x) {
+        double x1 = xAt(segment);
+        double y1 = yAt(segment);
+        double k = (x - x1) / (xAt(segment + 1) - x1);
+        return y1 + k * (yAt(segment + 1) - y1);
+    }
+
+    /**
+     * Exact integral of the piecewise linear function on [leftX; rightX].
+     *
+     * @throws IllegalArgumentException if the range is empty or outside the domain
+     */
+    public double integrate(double leftX, double rightX) {
+        checkRange(leftX, rightX);
+        double a = Math.max(leftX, getLeftDomainBorder());
+        double b = Math.min(rightX, getRightDomainBorder());
+        if (!(a < b)) {
+            return 0.0;
+        }
+        int first = segmentOf(a);
+        int last = segmentOf(b);
+        double ya = interpolate(first, a);
+        double yb = interpolate(last, b);
+        if (first == last) {
+            return PointIndex.area(a, ya, b, yb);
+        }
+        summarize(root);
+        return PointIndex.area(a, ya, xAt(first + 1), yAt(first + 1))
+                + areaBetween(root, first + 1, last)
+                + PointIndex.area(xAt(last), yAt(last), b, yb);
+    }
+
+    /**
+     * Minimum of the piecewise linear function on [leftX; rightX].
+     *
+     * @throws IllegalArgumentException if the range is empty or outside the domain
+     */
+    public double getMinY(double leftX, double rightX) {
+        return extremum(leftX, rightX, false);
+    }
+
+    /**
+     * Maximum of the piecewise linear function on [leftX; rightX].
+     *
+     * @throws IllegalArgumentException if the range is empty or outside the domain
+     */
+    public double getMaxY(double leftX, double rightX) {
+        return extremum(leftX, rightX, true);
+    }
+
+    // A piecewise linear function reaches its extremes at the range ends or at points inside the range.
+    private double extremum(double leftX, double rightX, boolean max) {
+        checkRange(leftX, rightX);
+        double a = Math.max(leftX, getLeftDomainBorder());
+        double b = Math.min(rightX, getRightDomainBorder());
+        int first = segmentOf(a);
+        int last = segmentOf(b);
+        double ya = interpolate(first, a);
+        double yb = interpolate(last, b);
+        double result = max ? Math.max(ya, yb) : Math.min(ya, yb);
+        if (first == last) {
+            return result;
+        }
+        summarize(root);
+        double inner = extremeY(root, first + 1, last, max);
+        return max ? Math.max(result, inner) : Math.min(result, inner);
+    }
+
+    private static void summarize(Node node) {
+        if (!node.stale) {
+            return;
+        }
+        if (node instanceof Leaf leaf) {
+            double area = 0.0;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < leaf.size; i++) {
+                if (i > 0) {
+                    area += PointIndex.area(leaf.xs[i - 1], leaf.ys[i - 1], leaf.xs[i], leaf.ys[i]);
+                }
+                minY = Math.min(minY, leaf.ys[i]);
+                maxY = Math.max(maxY, leaf.ys[i]);
+            }
+            leaf.area = area;
+            leaf.minY = minY;
+            leaf.maxY = maxY;
+            if (leaf.size > 0) {
+                leaf.firstX = leaf.xs[0];
+                leaf.firstY = leaf.ys[0];
+                leaf.lastY = leaf.ys[leaf.size - 1];
+            }
+        } else {
+            Branch branch = (Branch) node;
+            double area = 0.0;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < branch.count; i++) {
+                Node child = branch.children[i];
+                summarize(child);
+                area += child.area;
+                if (i > 0) {
+                    area += bridge(branch.children[i - 1], child);
+                }
+                minY = Math.min(minY, child.minY);
+                maxY = Math.max(maxY, child.maxY);
+            }
+            branch.area = area;
+            branch.minY = minY;
+            branch.maxY = maxY;
+            branch.firstX = branch.children[0].firstX;
+            branch.firstY = branch.children[0].firstY;
+            branch.lastY = branch.children[branch.count - 1].lastY;
+        }
+        node.stale = false;
+    }
+
+    // Area of the segment joining the last point of a node with the first point of the next one.
+    private static double bridge(Node left, Node right) {
+        return PointIndex.area(left.maxX(), left.lastY, right.firstX, right.firstY);
+    }
+
+    /**
+     * Sum of areas of the segments between points {@code from} and {@code to} of a summarized subtree,
+     * indexes are relative to the node.
+     */
+    private static double areaBetween(Node node, int from, int to) {
+        if (from <= 0 && to >= node.size - 1) {
+            return node.area;
+        }
+        if (node instanceof Leaf leaf) {
+            double area = 0.0;
+            for (int i = Math.max(from, 0) + 1; i <= Math.min(to, leaf.size - 1); i++) {
+                area += PointIndex.area(leaf.xs[i - 1], leaf.ys[i - 1], leaf.xs[i], leaf.ys[i]);
+            }
+            return area;
+        }
+        Branch branch = (Branch) node;
+        double area = 0.0;
+        int offset = 0;
+        for (int i = 0; i < branch.count && offset <= to; i++) {
+            Node child = branch.children[i];
+            int end = offset + child.size;
+            if (end > from) {
+                area += areaBetween(child, from - offset, to - offset);
+            }
+            if (i + 1 < branch.count && end - 1 >= from && end <= to) {
+                area += bridge(child, branch.children[i + 1]);
+            }
+            offset = end;
+        }
+        return area;
+    }
+
+    /**
+     * Minimum or maximum Y of points {@code from} to {@code to} of a summarized subtree, indexes are relative
+     * to the node.
+     */
+    private static double extremeY(Node node, int from, int to, boolean max) {
+        if (from <= 0 && to >= node.size - 1) {
+            return max ? node.maxY : node.minY;
+        }
+        double result = max ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        if (node instanceof Leaf leaf) {
+            for (int i = Math.max(from, 0); i <= Math.min(to, leaf.size - 1); i++) {
+                result = max ? Math.max(result, leaf.ys[i]) : Math.min(result, leaf.ys[i]);
+            }
+            return result;
+        }
+        Branch branch = (Branch) node;
+        int offset = 0;
+        for (int i = 0; i < branch.count && offset <= to; i++) {
+            Node child = branch.children[i];
+            if (offset + child.size > from) {
+                double y = extremeY(child, from - offset, to - offset, max);
+                result = max ? Math.max(result, y) : Math.min(result, y);
+            }
+            offset += child.size;
+        }
+        return result;
+    }
+
+    private interface LeafVisitor {
+        boolean visit(Leaf leaf);
+    }
+
+    private static boolean forEachLeaf(Node node, LeafVisitor visitor) {
+        if (node instanceof Leaf leaf) {
+            return visitor.visit(leaf);
+        }
+        Branch branch = (Branch) node;
+        for (int i = 0; i < branch.count; i++) {
+            if (!forEachLeaf(branch.children[i], visitor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void copyXs(double[] destination) {
+        if (destination.length < root.size) {
+            throw new IllegalArgumentException("Destination is shorter than points count");
+        }
+        int[] offset = {0};
+        forEachLeaf(root, leaf -> {
+            System.arraycopy(leaf.xs, 0, destination, offset[0], leaf.size);
+            offset[0] += leaf.size;
+            return true;
+        });
+    }
+
+    @Override
+    public void copyYs(double[] destination) {
+        if (destination.length < root.size) {
+            throw new IllegalArgumentException("Destination is shorter than points count");
+        }
+        int[] offset = {0};
+        forEachLeaf(root, leaf -> {
+            System.arraycopy(leaf.ys, 0, destination, offset[0], leaf.size);
+            offset[0] += leaf.size;
+            return true;
+        });
+    }
+
+    @Override
+    public int copyPoints(double[] xs, double[] ys) {
+        if (xs.length < root.size || ys.length < root.size) {
+            return root.size;
+        }
+        int[] offset = {0};
+        forEachLeaf(root, leaf -> {
+            System.arraycopy(leaf.xs, 0, xs, offset[0], leaf.size);
+            System.arraycopy(leaf.ys, 0, ys, offset[0], leaf.size);
+            offset[0] += leaf.size;
+            return true;
+        });
+        return root.size;
+    }
+
+    @Override
+    public void forEachPoint(DoubleBinaryConsumer action) {
+        forEachLeaf(root, leaf -> {
+            for (int i = 0; i < leaf.size; i++) {
+                action.accept(leaf.xs[i], leaf.ys[i]);
+            }
+            return true;
+        });
+    }
+
+    @Override
+    public long fingerprint() {
+        if (!fingerprintValid) {
+            long[] sum = {0L};
+            int[] offset = {0};
+            forEachLeaf(root, leaf -> {
+                for (int i = 0; i < leaf.size; i++) {
+                    sum[0] += Fingerprints.term(offset[0] + i, leaf.xs[i], leaf.ys[i]);
+                }
+                offset[0] += leaf.size;
+                return true;
+            });
+            fingerprintSum = sum[0];
+            fingerprintValid = true;
+        }
+        return Fingerprints.finish(fingerprintSum, root.size);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        forEachLeaf(root, leaf -> {
+            for (int i = 0; i < leaf.size; i++) {
+                if (builder.length() > 1) {
+                    builder.append(", ");
+                }
+                builder.append(new FunctionPoint(leaf.xs[i], leaf.ys[i]));
+            }
+            return true;
+        });
+        builder.append('}');
+        return builder.toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof TabulatedFunction other)) {
+            return false;
+        }
+        if (root.size != other.getPointsCount()) {
+            return false;
+        }
+        if (other instanceof ChunkedTabulatedFunction chunked && fingerprintValid && chunked.fingerprintValid
+                && fingerprintSum != chunked.fingerprintSum) {
+            return false;
+        }
+        // Own points are walked leaf by leaf while the other function pushes its points.
+        int[] leafCount = {0};
+        forEachLeaf(root, leaf -> {
+            leafCount[0]++;
+            return true;
+        });
+        Leaf[] leaves = new Leaf[leafCount[0]];
+        leafCount[0] = 0;
+        forEachLeaf(root, leaf -> {
+            leaves[leafCount[0]++] = leaf;
+            return true;
+        });
+        int[] cursor = {0, 0};
+        return PointColumns.matches(other, root.size, (i, x, y) -> {
+            Leaf leaf = leaves[cursor[0]];
+            int position = cursor[1]++;
+            if (cursor[1] == leaf.size) {
+                cursor[0]++;
+                cursor[1] = 0;
+            }
+            return PointColumns.sameBits(leaf.xs[position], x) && PointColumns.sameBits(leaf.ys[position], y);
+        });
+    }
+
+    @Override
+    public int hashCode() {
+        return Fingerprints.toHashCode(fingerprint());
+    }
+
+    @Override
+    public ChunkedTabulatedFunction clone() {
+        try {
+            ChunkedTabulatedFunction copy = (ChunkedTabulatedFunction) super.clone();
+            copy.root = root.copy();
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError("Clone should be supported", e);
+        }
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt(root.size);
+        IOException[] failure = new IOException[1];
+        forEachLeaf(root, leaf -> {
+            try {
+                for (int i = 0; i < leaf.size; i++) {
+                    out.writeDouble(leaf.xs[i]);
+                    out.writeDouble(leaf.ys[i]);
+                }
+                return true;
+            } catch (IOException e) {
+                failure[0] = e;
+                return false;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        int count = in.readInt();
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = in.readDouble();
+            ys[i] = in.readDouble();
+        }
+        root = build(xs, ys);
+        fingerprintValid = false;
+    }
+}
@@ -0,0 +1,376 @@
+package functions;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.stream.DoubleStream;
+
+/**
+ * Tabulated function that may be shared between threads.
+ * Points live in an immutable snapshot that readers use without locking; writers are serialized,
+ * copy the snapshot, modify the copy and publish it. Reads scale with cores, each write costs O(n).
+ * A single call always sees one consistent snapshot, a sequence of calls may observe concurrent updates.
+ */
+public class ConcurrentTabulatedFunction implements TabulatedFunction, Serializable, Cloneable {
+    private static final long serialVersionUID = 1L;
+    private static final double EPS = Math.ulp(1.0);
+
+    private static final class Snapshot implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final double[] xs;
+        final double[] ys;
+        // Computed by the writer, so readers get the fingerprint without any work.
+        final long fingerprintSum;
+
+        Snapshot(double[] xs, double[] ys) {
+            this.xs = xs;
+            this.ys = ys;
+            long sum = 0L;
+            for (int i = 0; i < xs.length; i++) {
+                sum += Fingerprints.term(i, xs[i], ys[i]);
+            }
+            this.fingerprintSum = sum;
+        }
+
+        Snapshot(double[] xs, double[] ys, long fingerprintSum) {
+            this.xs = xs;
+            this.ys = ys;
+            this.fingerprintSum = fingerprintSum;
+        }
+
+        Snapshot replace(int index, double[] xs, double[] ys) {
+            long sum = fingerprintSum + Fingerprints.term(index, xs[index], ys[index])
+                    - Fingerprints.term(index, this.xs[index], this.ys[index]);
+            return new Snapshot(xs, ys, sum);
+        }
+    }
+
+    private volatile Snapshot snapshot;
+
+    public ConcurrentTabulatedFunction(double leftX, double rightX, int pointsCount) {
+        this(leftX, rightX, new double[validateBorders(leftX, rightX, pointsCount)]);
+    }
+
+    public ConcurrentTabulatedFunction(double leftX, double rightX, double[] values) {
+        validateBorders(leftX, rightX, values.length);
+        double[] xs = new double[values.length];
+        double step = (rightX - leftX) / (values.length - 1);
+        for (int i = 0; i < values.length; i++) {
+            xs[i] = leftX + step * i;
+        }
+        snapshot = new Snapshot(xs, values.clone());
+    }
+
+    public ConcurrentTabulatedFunction(FunctionPoint[] sourcePoints) {
+        if (sourcePoints.length < 2) {
+            throw new IllegalArgumentException("At least two points are required");
+        }
+        double[] xs = new double[sourcePoints.length];
+        double[] ys = new double[sourcePoints.length];
+        for (int i = 0; i < sourcePoints.length; i++) {
+            xs[i] = sourcePoints[i].getX();
+            ys[i] = sourcePoints[i].getY();
+            if (i > 0 && !(xs[i] - xs[i - 1] > EPS)) {
+                throw new IllegalArgumentException("Points must be strictly increasing by X");
+            }
+        }
+        snapshot = new Snapshot(xs, ys);
+    }
+
+    public ConcurrentTabulatedFunction(TabulatedFunction source) {
+        PointColumns columns = PointColumns.of(source);
+        snapshot = new Snapshot(columns.xs, columns.ys);
+    }
+
+    private static int validateBorders(double leftX, double rightX, int count) {
+        if (!(rightX - leftX > EPS)) {
+            throw new IllegalArgumentException("left bound must be smaller than right bound");
+        }
+        if (count < 2) {
+            throw new IllegalArgumentException("Function requires at least two points");
+        }
+        return count;
+    }
+
+    private static void checkIndex(Snapshot current, int index) {
+        if (index < 0 || index >= current.xs.length) {
+            throw new FunctionPointIndexOutOfBoundsException("Index: " + index);
+        }
+    }
+
+    private static void ensureXFits(Snapshot current, int index, double x) throws InappropriateFunctionPointException {
+        if (index > 0 && !(x - current.xs[index - 1] > EPS)) {
+            throw new InappropriateFunctionPointException("X overlaps previous point");
+        }
+        if (index < current.xs.length - 1 && !(current.xs[index + 1] - x > EPS)) {
+            throw new InappropriateFunctionPointException("X overlaps next point");
+        }
+    }
+
+    @Override
+    public double getLeftDomainBorder() {
+        return snapshot.xs[0];
+    }
+
+    @Override
+    public double getRightDomainBorder() {
+        double[] xs = snapshot.xs;
+        return xs[xs.length - 1];
+    }
+
+    @Override
+    public int getPointsCount() {
+        return snapshot.xs.length;
+    }
+
+    @Override
+    public FunctionPoint getPoint(int index) {
+        Snapshot current = snapshot;
+        checkIndex(current, index);
+        return new FunctionPoint(current.xs[index], current.ys[index]);
+    }
+
+    @Override
+    public synchronized void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        Snapshot current = snapshot;
+        checkIndex(current, index);
+        ensureXFits(current, index, point.getX());
+        double[] xs = current.xs.clone();
+        double[] ys = current.ys.clone();
+        xs[index] = point.getX();
+        ys[index] = point.getY();
+        snapshot = current.replace(index, xs, ys);
+    }
+
+    @Override
+    public double getPointX(int index) {
+        Snapshot current = snapshot;
+        checkIndex(current, index);
+        return current.xs[index];
+    }
+
+    @Override
+    public synchronized void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        Snapshot current = snapshot;
+        checkIndex(current, index);
+        ensureXFits(current, index, x);
+        double[] xs = current.xs.clone();
+        xs[index] = x;
+        snapshot = current.replace(index, xs, current.ys);
+    }
+
+    @Override
+    public double getPointY(int index) {
+        Snapshot current = snapshot;
+        checkIndex(current, index);
+        return current.ys[index];
+    }
+
+    @Override
+    public synchronized void setPointY(int index, double y) {
+        Snapshot current = snapshot;
+        checkIndex(current, index);
+        double[] ys = current.ys.clone();
+        ys[index] = y;
+        snapshot = current.replace(index, current.xs, ys);
+    }
+
+    @Override
+    public synchronized void deletePoint(int index) {
+        Snapshot current = snapshot;
+        checkIndex(current, index);
+        int count = current.xs.length;
+        if (count < 3) {
+            throw new IllegalStateException("Function must keep at least two points");
+        }
+        double[] xs = new double[count - 1];
+        double[] ys = new double[count - 1];
+        System.arraycopy(current.xs, 0, xs, 0, index);
+        System.arraycopy(current.ys, 0, ys, 0, index);
+        System.arraycopy(current.xs, index + 1, xs, index, count - index - 1);
+        System.arraycopy(current.ys, index + 1, ys, index, count - index - 1);
+        snapshot = new Snapshot(xs, ys);
+    }
+
+    @Override
+    public synchronized void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        Snapshot current = snapshot;
+        int count = current.xs.length;
+        int insertIndex = findInsertIndex(current.xs, point.getX());
+        if (insertIndex < count && Math.abs(current.xs[insertIndex] - point.getX()) <= EPS) {
+            throw new InappropriateFunctionPointException("Point with same X already exists");
+        }
+        double[] xs = new double[count + 1];
+        double[] ys = new double[count + 1];
+        System.arraycopy(current.xs, 0, xs, 0, insertIndex);
+        System.arraycopy(current.ys, 0, ys, 0, insertIndex);
+        xs[insertIndex] = point.getX();
+        ys[insertIndex] = point.getY();
+        System.arraycopy(current.xs, insertIndex, xs, insertIndex + 1, count - insertIndex);
+        System.arraycopy(current.ys, insertIndex, ys, insertIndex + 1, count - insertIndex);
+        snapshot = new Snapshot(xs, ys);
+    }
+
+    private static int findInsertIndex(double[] xs, double x) {
+        int low = 0;
+        int high = xs.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (Math.abs(xs[mid] - x) <= EPS) {
+                return mid;
+            } else if (xs[mid] < x) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public double getFunctionValue(double x) {
+        Snapshot current = snapshot;
+        double[] xs = current.xs;
+        double[] ys = current.ys;
+        int last = xs.length - 1;
+        if (x < xs[0] - EPS || x > xs[last] + EPS) {
+            return Double.NaN;
+        }
+        if (Math.abs(x - xs[0]) <= EPS) {
+            return ys[0];
+        }
+        if (Math.abs(x - xs[last]) <= EPS) {
+            return ys[last];
+        }
+        int low = 0;
+        int high = last;
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (xs[mid] <= x) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        double k = (x - xs[low]) / (xs[high] - xs[low]);
+        return ys[low] + k * (ys[high] - ys[low]);
+    }
+
+    @Override
+    public void copyXs(double[] destination) {
+        double[] xs = snapshot.xs;
+        if (destination.length < xs.length) {
+            throw new IllegalArgumentException("Destination is shorter than points count");
+        }
+        System.arraycopy(xs, 0, destination, 0, xs.length);
+    }
+
+    @Override
+    public void copyYs(double[] destination) {
+        double[] ys = snapshot.ys;
+        if (destination.length < ys.length) {
+            throw new IllegalArgumentException("Destination is shorter than points count");
+        }
+        System.arraycopy(ys, 0, destination, 0, ys.length);
+    }
+
+    @Override
+    public int copyPoints(double[] xs, double[] ys) {
+        Snapshot current = snapshot;
+        int count = current.xs.length;
+        if (xs.length >= count && ys.length >= count) {
+            System.arraycopy(current.xs, 0, xs, 0, count);
+            System.arraycopy(current.ys, 0, ys, 0, count);
+        }
+        return count;
+    }
+
+    @Override
+    public void forEachPoint(DoubleBinaryConsumer action) {
+        Snapshot current = snapshot;
+        for (int i = 0; i < current.xs.length; i++) {
+            action.accept(current.xs[i], current.ys[i]);
+        }
+    }
+
+    /**
+     * Iterates the current snapshot directly, no copy is made.
+     */
+    @Override
+    public Spliterator<FunctionPoint> spliterator() {
+        Snapshot current = snapshot;
+        return new PointSpliterator(current.xs, current.ys, 0, current.xs.length);
+    }
+
+    @Override
+    public DoubleStream xStream() {
+        return Arrays.stream(snapshot.xs);
+    }
+
+    @Override
+    public DoubleStream yStream() {
+        return Arrays.stream(snapshot.ys);
+    }
+
+    @Override
+    public long fingerprint() {
+        Snapshot current = snapshot;
+        return Fingerprints.finish(current.fingerprintSum, current.xs.length);
+    }
+
+    @Override
+    public String toString() {
+        Snapshot current = snapshot;
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < current.xs.length; i++) {
+            builder.append(new FunctionPoint(current.xs[i], current.ys[i]));
+            if (i < current.xs.length - 1) {
+                builder.append(", ");
+            }
+        }
+        builder.append('}');
+        return builder.toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof ConcurrentTabulatedFunction other) {
+            Snapshot left = snapshot;
+            Snapshot right = other.snapshot;
+            if (left.fingerprintSum != right.fingerprintSum) {
+                return false;
+            }
+            return Arrays.equals(left.xs, right.xs) && Arrays.equals(left.ys, right.ys);
+        }
+        if (!(obj instanceof TabulatedFunction other)) {
+            return false;
+        }
+        Snapshot current = snapshot;
+        if (current.xs.length != other.getPointsCount()) {
+            return false;
+        }
+        return PointColumns.matches(other, current.xs.length, (i, x, y) ->
+                PointColumns.sameBits(current.xs[i], x) && PointColumns.sameBits(current.ys[i], y));
+    }
+
+    @Override
+    public int hashCode() {
+        return Fingerprints.toHashCode(fingerprint());
+    }
+
+    /**
+     * Snapshots are immutable, so the copy shares the current one and costs O(1).
+     */
+    @Override
+    public ConcurrentTabulatedFunction clone() {
+        try {
+            return (ConcurrentTabulatedFunction) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError("Clone should be supported", e);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package functions;
+
+/**
+ * Receives coordinates of a point without boxing them into {@link FunctionPoint}.
+ */
+@FunctionalInterface
+public interface DoubleBinaryConsumer {
+    void accept(double x, double y);
+}
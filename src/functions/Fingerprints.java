@@ -0,0 +1,33 @@
+package functions;
+
+/**
+ * Content fingerprint of a tabulated function: a sum of strongly mixed per-point terms that depend on the index,
+ * so it is order-sensitive, and replacing one point updates the sum in O(1) without rescanning the table.
+ */
+final class Fingerprints {
+    private Fingerprints() {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    static long term(int index, double x, double y) {
+        long h = mix(Double.doubleToLongBits(x) + index * 0x9E3779B97F4A7C15L);
+        return mix(h ^ Double.doubleToLongBits(y) * 0xC2B2AE3D27D4EB4FL);
+    }
+
+    static long finish(long sum, int count) {
+        return mix(sum + count * 0x165667B19E3779F9L);
+    }
+
+    static int toHashCode(long fingerprint) {
+        return (int) (fingerprint ^ (fingerprint >>> 32));
+    }
+
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
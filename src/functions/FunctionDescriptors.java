@@ -0,0 +1,346 @@
+package functions;
+
+import functions.basic.Cos;
+import functions.basic.Exp;
+import functions.basic.Log;
+import functions.basic.Precision;
+import functions.basic.Sin;
+import functions.basic.Tan;
+import functions.meta.CachingFunction;
+import functions.meta.Composition;
+import functions.meta.Mult;
+import functions.meta.Power;
+import functions.meta.Scale;
+import functions.meta.Shift;
+import functions.meta.Sum;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary descriptor of a function tree, used to ship functions between processes.
+ * Supports the {@code basic} functions, the {@code meta} combinators and tabulated functions;
+ * a descriptor is written in prefix order: one tag byte per node followed by its parameters and children.
+ * Only exact classes are recognized, a subclass could change the behavior and is rejected.
+ */
+public final class FunctionDescriptors {
+    private static final int MAX_DEPTH = 1000;
+    private static final int POINT_BYTES = 16;
+
+    private static final byte EXP = 1;
+    private static final byte LOG = 2;
+    private static final byte SIN = 3;
+    private static final byte COS = 4;
+    private static final byte TAN = 5;
+    private static final byte SHIFT = 10;
+    private static final byte SCALE = 11;
+    private static final byte POWER = 12;
+    private static final byte SUM = 13;
+    private static final byte MULT = 14;
+    private static final byte COMPOSITION = 15;
+    private static final byte CACHED = 16;
+    private static final byte ARRAY_TABULATED = 20;
+    private static final byte LINKED_LIST_TABULATED = 21;
+    private static final byte CHUNKED_TABULATED = 22;
+    private static final byte CONCURRENT_TABULATED = 23;
+    private static final byte IMMUTABLE_TABULATED = 24;
+
+    private FunctionDescriptors() {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    public static byte[] encode(Function function) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            write(function, new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static Function decode(byte[] descriptor) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(descriptor));
+        Function function = read(in, descriptor.length);
+        if (in.available() > 0) {
+            throw new IOException("Trailing bytes after function descriptor");
+        }
+        return function;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the tree contains a function that has no descriptor
+     */
+    public static void write(Function function, DataOutput out) throws IOException {
+        if (function == null) {
+            throw new IllegalArgumentException("Function must not be null");
+        }
+        Class<?> type = function.getClass();
+        if (type == Exp.class) {
+            out.writeByte(EXP);
+            out.writeByte(((Exp) function).getPrecision().ordinal());
+        } else if (type == Log.class) {
+            Log log = (Log) function;
+            out.writeByte(LOG);
+            out.writeByte(log.getPrecision().ordinal());
+            out.writeDouble(log.getBase());
+        } else if (type == Sin.class) {
+            out.writeByte(SIN);
+            out.writeByte(((Sin) function).getPrecision().ordinal());
+        } else if (type == Cos.class) {
+            out.writeByte(COS);
+            out.writeByte(((Cos) function).getPrecision().ordinal());
+        } else if (type == Tan.class) {
+            out.writeByte(TAN);
+            out.writeByte(((Tan) function).getPrecision().ordinal());
+        } else if (type == Shift.class) {
+            Shift shift = (Shift) function;
+            out.writeByte(SHIFT);
+            out.writeDouble(shift.getShiftX());
+            out.writeDouble(shift.getShiftY());
+            write(shift.getFunction(), out);
+        } else if (type == Scale.class) {
+            Scale scale = (Scale) function;
+            out.writeByte(SCALE);
+            out.writeDouble(scale.getScaleX());
+            out.writeDouble(scale.getScaleY());
+            write(scale.getFunction(), out);
+        } else if (type == Power.class) {
+            Power power = (Power) function;
+            out.writeByte(POWER);
+            out.writeDouble(power.getPower());
+            write(power.getBaseFunction(), out);
+        } else if (type == Sum.class) {
+            Sum sum = (Sum) function;
+            out.writeByte(SUM);
+            write(sum.getFirst(), out);
+            write(sum.getSecond(), out);
+        } else if (type == Mult.class) {
+            Mult mult = (Mult) function;
+            out.writeByte(MULT);
+            write(mult.getFirst(), out);
+            write(mult.getSecond(), out);
+        } else if (type == Composition.class) {
+            Composition composition = (Composition) function;
+            out.writeByte(COMPOSITION);
+            write(composition.getOuter(), out);
+            write(composition.getInner(), out);
+        } else if (type == CachingFunction.class) {
+            CachingFunction cached = (CachingFunction) function;
+            out.writeByte(CACHED);
+            out.writeInt(cached.getCapacity());
+            out.writeBoolean(cached.isThreadSafe());
+            write(cached.getFunction(), out);
+        } else if (type == ArrayTabulatedFunction.class) {
+            writeTabulated(ARRAY_TABULATED, (TabulatedFunction) function, out);
+        } else if (type == LinkedListTabulatedFunction.class) {
+            writeTabulated(LINKED_LIST_TABULATED, (TabulatedFunction) function, out);
+        } else if (type == ChunkedTabulatedFunction.class) {
+            writeTabulated(CHUNKED_TABULATED, (TabulatedFunction) function, out);
+        } else if (type == ConcurrentTabulatedFunction.class) {
+            writeTabulated(CONCURRENT_TABULATED, (TabulatedFunction) function, out);
+        } else if (type == ImmutableTabulatedFunction.class) {
+            writeTabulated(IMMUTABLE_TABULATED, (TabulatedFunction) function, out);
+        } else {
+            throw new IllegalArgumentException("No descriptor for " + type.getName());
+        }
+    }
+
+    private static void writeTabulated(byte tag, TabulatedFunction function, DataOutput out) throws IOException {
+        PointColumns columns = PointColumns.of(function);
+        out.writeByte(tag);
+        out.writeInt(columns.count());
+        for (int i = 0; i < columns.count(); i++) {
+            out.writeDouble(columns.xs[i]);
+            out.writeDouble(columns.ys[i]);
+        }
+    }
+
+    /**
+     * 128-bit digest of the descriptor of a function tree, computed without encoding it. Tabulated functions
+     * contribute their tag and {@link TabulatedFunction#fingerprint() fingerprint} instead of their points,
+     * so the cost depends on the number of nodes only. Equal descriptors have equal digests.
+     *
+     * @return the two halves of the digest
+     * @throws IllegalArgumentException if the tree contains a function that has no descriptor
+     */
+    static long[] digest(Function function) {
+        long[] state = {0x6A09E667F3BCC908L, 0xBB67AE8584CAA73BL};
+        digest(function, state);
+        return state;
+    }
+
+    private static void digest(Function function, long[] state) {
+        if (function == null) {
+            throw new IllegalArgumentException("Function must not be null");
+        }
+        Class<?> type = function.getClass();
+        if (type == Exp.class) {
+            add(state, EXP, ((Exp) function).getPrecision().ordinal());
+        } else if (type == Log.class) {
+            Log log = (Log) function;
+            add(state, LOG, log.getPrecision().ordinal());
+            add(state, Double.doubleToLongBits(log.getBase()));
+        } else if (type == Sin.class) {
+            add(state, SIN, ((Sin) function).getPrecision().ordinal());
+        } else if (type == Cos.class) {
+            add(state, COS, ((Cos) function).getPrecision().ordinal());
+        } else if (type == Tan.class) {
+            add(state, TAN, ((Tan) function).getPrecision().ordinal());
+        } else if (type == Shift.class) {
+            Shift shift = (Shift) function;
+            add(state, SHIFT);
+            add(state, Double.doubleToLongBits(shift.getShiftX()));
+            add(state, Double.doubleToLongBits(shift.getShiftY()));
+            digest(shift.getFunction(), state);
+        } else if (type == Scale.class) {
+            Scale scale = (Scale) function;
+            add(state, SCALE);
+            add(state, Double.doubleToLongBits(scale.getScaleX()));
+            add(state, Double.doubleToLongBits(scale.getScaleY()));
+            digest(scale.getFunction(), state);
+        } else if (type == Power.class) {
+            Power power = (Power) function;
+            add(state, POWER);
+            add(state, Double.doubleToLongBits(power.getPower()));
+            digest(power.getBaseFunction(), state);
+        } else if (type == Sum.class) {
+            Sum sum = (Sum) function;
+            add(state, SUM);
+            digest(sum.getFirst(), state);
+            digest(sum.getSecond(), state);
+        } else if (type == Mult.class) {
+            Mult mult = (Mult) function;
+            add(state, MULT);
+            digest(mult.getFirst(), state);
+            digest(mult.getSecond(), state);
+        } else if (type == Composition.class) {
+            Composition composition = (Composition) function;
+            add(state, COMPOSITION);
+            digest(composition.getOuter(), state);
+            digest(composition.getInner(), state);
+        } else if (type == CachingFunction.class) {
+            CachingFunction cached = (CachingFunction) function;
+            add(state, CACHED, cached.getCapacity());
+            add(state, cached.isThreadSafe() ? 1 : 0);
+            digest(cached.getFunction(), state);
+        } else if (type == ArrayTabulatedFunction.class) {
+            add(state, ARRAY_TABULATED, ((TabulatedFunction) function).fingerprint());
+        } else if (type == LinkedListTabulatedFunction.class) {
+            add(state, LINKED_LIST_TABULATED, ((TabulatedFunction) function).fingerprint());
+        } else if (type == ChunkedTabulatedFunction.class) {
+            add(state, CHUNKED_TABULATED, ((TabulatedFunction) function).fingerprint());
+        } else if (type == ConcurrentTabulatedFunction.class) {
+            add(state, CONCURRENT_TABULATED, ((TabulatedFunction) function).fingerprint());
+        } else if (type == ImmutableTabulatedFunction.class) {
+            add(state, IMMUTABLE_TABULATED, ((TabulatedFunction) function).fingerprint());
+        } else {
+            throw new IllegalArgumentException("No descriptor for " + type.getName());
+        }
+    }
+
+    private static void add(long[] state, byte tag, long value) {
+        add(state, tag);
+        add(state, value);
+    }
+
+    // Two differently seeded and mixed lanes, so a collision needs both 64-bit halves to collide.
+    private static void add(long[] state, long value) {
+        state[0] = Fingerprints.mix(state[0] ^ value) + 0x9E3779B97F4A7C15L;
+        state[1] = Fingerprints.mix(state[1] + value * 0xC2B2AE3D27D4EB4FL) ^ state[0];
+    }
+
+    public static Function read(DataInput in) throws IOException {
+        return read(in, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Reads a descriptor from a source known to hold at most {@code limit} more bytes, such as a frame,
+     * so that a corrupted points count fails before anything is allocated for it.
+     */
+    public static Function read(DataInput in, long limit) throws IOException {
+        return read(in, 0, limit);
+    }
+
+    private static Function read(DataInput in, int depth, long limit) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("Function descriptor is nested too deeply");
+        }
+        byte tag = in.readByte();
+        try {
+            return switch (tag) {
+                case EXP -> new Exp(readPrecision(in));
+                case LOG -> {
+                    Precision precision = readPrecision(in);
+                    yield new Log(in.readDouble(), precision);
+                }
+                case SIN -> new Sin(readPrecision(in));
+                case COS -> new Cos(readPrecision(in));
+                case TAN -> new Tan(readPrecision(in));
+                case SHIFT -> {
+                    double shiftX = in.readDouble();
+                    double shiftY = in.readDouble();
+                    yield new Shift(read(in, depth + 1, limit), shiftX, shiftY);
+                }
+                case SCALE -> {
+                    double scaleX = in.readDouble();
+                    double scaleY = in.readDouble();
+                    yield new Scale(read(in, depth + 1, limit), scaleX, scaleY);
+                }
+                case POWER -> {
+                    double power = in.readDouble();
+                    yield new Power(read(in, depth + 1, limit), power);
+                }
+                case SUM -> new Sum(read(in, depth + 1, limit), read(in, depth + 1, limit));
+                case MULT -> new Mult(read(in, depth + 1, limit), read(in, depth + 1, limit));
+                case COMPOSITION -> new Composition(read(in, depth + 1, limit), read(in, depth + 1, limit));
+                case CACHED -> {
+                    int capacity = in.readInt();
+                    boolean threadSafe = in.readBoolean();
+                    yield new CachingFunction(read(in, depth + 1, limit), capacity, threadSafe);
+                }
+                case ARRAY_TABULATED -> new ArrayTabulatedFunction(readPoints(in, limit));
+                case LINKED_LIST_TABULATED -> new LinkedListTabulatedFunction(readPoints(in, limit));
+                case CHUNKED_TABULATED -> new ChunkedTabulatedFunction(readPoints(in, limit));
+                case CONCURRENT_TABULATED -> new ConcurrentTabulatedFunction(readPoints(in, limit));
+                case IMMUTABLE_TABULATED -> new ImmutableTabulatedFunction(new ArrayTabulatedFunction(readPoints(in, limit)));
+                default -> throw new IOException("Unknown function descriptor tag: " + tag);
+            };
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid function descriptor: " + e.getMessage(), e);
+        }
+    }
+
+    private static Precision readPrecision(DataInput in) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        Precision[] values = Precision.values();
+        if (ordinal >= values.length) {
+            throw new IOException("Unknown precision: " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    private static FunctionPoint[] readPoints(DataInput in, long limit) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Negative points count: " + count);
+        }
+        if (count > limit / POINT_BYTES) {
+            throw new IOException("Points count exceeds the descriptor length: " + count);
+        }
+        // Without a known length the array grows with the points actually read.
+        List<FunctionPoint> points = new ArrayList<>(Math.min(count, 1 << 16));
+        for (int i = 0; i < count; i++) {
+            points.add(new FunctionPoint(in.readDouble(), in.readDouble()));
+        }
+        return points.toArray(new FunctionPoint[0]);
+    }
+}
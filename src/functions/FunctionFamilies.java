@@ -0,0 +1,51 @@
+package functions;
+
+import functions.basic.Log;
+import functions.meta.Power;
+import functions.meta.Scale;
+import functions.meta.Shift;
+
+/**
+ * Splits a function into a shared core and a cheap affine transform: {@code f(x) = scale * core(x) + shift}.
+ * Integrals are linear, so tasks with an equal core and step need the core integrated only once.
+ * <ul>
+ *     <li>{@code Log(b)} is {@code ln(x) / ln(b)}: the core is the natural logarithm of the same precision;</li>
+ *     <li>{@code Scale} without X scaling and {@code Shift} without X shift fold into the transform;</li>
+ *     <li>{@code Power(g, p)} with {@code g = a * core}, {@code a > 0}, becomes {@code a^p * core^p}.</li>
+ * </ul>
+ * Anything else is its own core. Transforms of the argument change the evaluation grid and are left in the core.
+ */
+final class FunctionFamilies {
+    record Member(Function core, double scale, double shift) {
+    }
+
+    private FunctionFamilies() {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    static Member decompose(Function function) {
+        Class<?> type = function.getClass();
+        if (type == Log.class) {
+            Log log = (Log) function;
+            return new Member(new Log(Math.E, log.getPrecision()), 1.0 / Math.log(log.getBase()), 0.0);
+        }
+        if (type == Scale.class && ((Scale) function).getScaleX() == 1.0) {
+            Scale scale = (Scale) function;
+            Member inner = decompose(scale.getFunction());
+            return new Member(inner.core(), inner.scale() * scale.getScaleY(), inner.shift() * scale.getScaleY());
+        }
+        if (type == Shift.class && ((Shift) function).getShiftX() == 0.0) {
+            Shift shift = (Shift) function;
+            Member inner = decompose(shift.getFunction());
+            return new Member(inner.core(), inner.scale(), inner.shift() + shift.getShiftY());
+        }
+        if (type == Power.class) {
+            Power power = (Power) function;
+            Member inner = decompose(power.getBaseFunction());
+            if (inner.shift() == 0.0 && inner.scale() > 0.0) {
+                return new Member(new Power(inner.core(), power.getPower()), Math.pow(inner.scale(), power.getPower()), 0.0);
+            }
+        }
+        return new Member(function, 1.0, 0.0);
+    }
+}
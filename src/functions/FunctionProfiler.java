@@ -0,0 +1,248 @@
+package functions;
+
+import functions.meta.CachingFunction;
+import functions.meta.Composition;
+import functions.meta.Mult;
+import functions.meta.Power;
+import functions.meta.Scale;
+import functions.meta.Shift;
+import functions.meta.Sum;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-node evaluation profiler for function trees.
+ * <p>
+ * {@link #profile(Function)} builds an instrumented copy of a tree in which every node of the {@code meta}
+ * package is rebuilt over instrumented children, and every node counts its calls and NaN results.
+ * One call out of {@code sampleInterval} is timed with {@link System#nanoTime()}, the total time of a node is
+ * extrapolated from the timed calls. Other functions, including basic and tabulated ones, are leaves.
+ * The original tree is never modified, so there is no cost at all when profiling is off;
+ * caches of {@link CachingFunction} nodes start empty in the copy.
+ */
+public final class FunctionProfiler {
+    public static final int DEFAULT_SAMPLE_INTERVAL = 64;
+
+    /**
+     * Instrumented node of a profiled tree. Counters are updated concurrently without locking.
+     */
+    public static final class Node implements Function {
+        private final String name;
+        private final Function function;
+        private final List<Node> children;
+        private final int sampleMask;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder nans = new LongAdder();
+        private final LongAdder sampledCalls = new LongAdder();
+        private final LongAdder sampledNanos = new LongAdder();
+
+        private Node(String name, Function function, List<Node> children, int sampleMask) {
+            this.name = name;
+            this.function = function;
+            this.children = Collections.unmodifiableList(children);
+            this.sampleMask = sampleMask;
+        }
+
+        @Override
+        public double getLeftDomainBorder() {
+            return function.getLeftDomainBorder();
+        }
+
+        @Override
+        public double getRightDomainBorder() {
+            return function.getRightDomainBorder();
+        }
+
+        @Override
+        public double getFunctionValue(double x) {
+            calls.increment();
+            double value;
+            if ((ThreadLocalRandom.current().nextInt() & sampleMask) == 0) {
+                long start = System.nanoTime();
+                value = function.getFunctionValue(x);
+                sampledNanos.add(System.nanoTime() - start);
+                sampledCalls.increment();
+            } else {
+                value = function.getFunctionValue(x);
+            }
+            if (Double.isNaN(value)) {
+                nans.increment();
+            }
+            return value;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<Node> getChildren() {
+            return children;
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getNaNCount() {
+            return nans.sum();
+        }
+
+        /**
+         * Time spent in this node and its children, extrapolated from the sampled calls.
+         */
+        public double getEstimatedNanos() {
+            long sampled = sampledCalls.sum();
+            return sampled == 0 ? 0.0 : (double) sampledNanos.sum() / sampled * calls.sum();
+        }
+
+        /**
+         * Estimated time spent in this node itself, never negative.
+         */
+        public double getEstimatedSelfNanos() {
+            double self = getEstimatedNanos();
+            for (Node child : children) {
+                self -= child.getEstimatedNanos();
+            }
+            return Math.max(0.0, self);
+        }
+
+        void reset() {
+            calls.reset();
+            nans.reset();
+            sampledCalls.reset();
+            sampledNanos.reset();
+            for (Node child : children) {
+                child.reset();
+            }
+        }
+    }
+
+    /**
+     * Result of {@link #profile}: the instrumented function and reports over its counters.
+     */
+    public static final class Profile {
+        private final Node root;
+
+        private Profile(Node root) {
+            this.root = root;
+        }
+
+        /**
+         * The instrumented copy of the tree, use it in place of the original one.
+         */
+        public Function getFunction() {
+            return root;
+        }
+
+        public Node getRoot() {
+            return root;
+        }
+
+        public void reset() {
+            root.reset();
+        }
+
+        /**
+         * Indented report, one line per node: calls, NaN results, estimated total and self time,
+         * and the share of the root's time.
+         */
+        public String toTreeString() {
+            StringBuilder builder = new StringBuilder();
+            appendTree(builder, root, 0, Math.max(root.getEstimatedNanos(), 1.0));
+            return builder.toString();
+        }
+
+        private static void appendTree(StringBuilder builder, Node node, int depth, double rootNanos) {
+            builder.append("  ".repeat(depth)).append(String.format(Locale.ROOT,
+                    "%s calls=%d nan=%d total=%.3fms self=%.3fms (%.1f%%)%n",
+                    node.getName(), node.getCalls(), node.getNaNCount(), node.getEstimatedNanos() / 1e6,
+                    node.getEstimatedSelfNanos() / 1e6, 100.0 * node.getEstimatedNanos() / rootNanos));
+            for (Node child : node.getChildren()) {
+                appendTree(builder, child, depth + 1, rootNanos);
+            }
+        }
+
+        /**
+         * Report in the collapsed stack format of flame graph tools: one line per node path,
+         * frames separated by semicolons, followed by the estimated self time in nanoseconds.
+         */
+        public String toCollapsedStacks() {
+            StringBuilder builder = new StringBuilder();
+            appendStacks(builder, root, root.getName());
+            return builder.toString();
+        }
+
+        private static void appendStacks(StringBuilder builder, Node node, String path) {
+            long self = Math.round(node.getEstimatedSelfNanos());
+            if (self > 0) {
+                builder.append(path).append(' ').append(self).append('\n');
+            }
+            for (Node child : node.getChildren()) {
+                appendStacks(builder, child, path + ';' + child.getName());
+            }
+        }
+    }
+
+    private FunctionProfiler() {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    public static Profile profile(Function function) {
+        return profile(function, DEFAULT_SAMPLE_INTERVAL);
+    }
+
+    /**
+     * @param sampleInterval a power of two, one call out of this many is timed on average
+     */
+    public static Profile profile(Function function, int sampleInterval) {
+        Objects.requireNonNull(function);
+        if (sampleInterval < 1 || Integer.bitCount(sampleInterval) != 1) {
+            throw new IllegalArgumentException("Sample interval must be a positive power of two");
+        }
+        return new Profile(instrument(function, sampleInterval - 1));
+    }
+
+    private static Node instrument(Function function, int mask) {
+        List<Node> children = new ArrayList<>(2);
+        Function copy;
+        if (function.getClass() == Shift.class) {
+            Shift shift = (Shift) function;
+            copy = new Shift(child(children, shift.getFunction(), mask), shift.getShiftX(), shift.getShiftY());
+        } else if (function.getClass() == Scale.class) {
+            Scale scale = (Scale) function;
+            copy = new Scale(child(children, scale.getFunction(), mask), scale.getScaleX(), scale.getScaleY());
+        } else if (function.getClass() == Power.class) {
+            Power power = (Power) function;
+            copy = new Power(child(children, power.getBaseFunction(), mask), power.getPower());
+        } else if (function.getClass() == Sum.class) {
+            Sum sum = (Sum) function;
+            copy = new Sum(child(children, sum.getFirst(), mask), child(children, sum.getSecond(), mask));
+        } else if (function.getClass() == Mult.class) {
+            Mult mult = (Mult) function;
+            copy = new Mult(child(children, mult.getFirst(), mask), child(children, mult.getSecond(), mask));
+        } else if (function.getClass() == Composition.class) {
+            Composition composition = (Composition) function;
+            copy = new Composition(child(children, composition.getOuter(), mask),
+                    child(children, composition.getInner(), mask));
+        } else if (function.getClass() == CachingFunction.class) {
+            CachingFunction cached = (CachingFunction) function;
+            copy = new CachingFunction(child(children, cached.getFunction(), mask), cached.getCapacity(),
+                    cached.isThreadSafe());
+        } else {
+            copy = function;
+        }
+        return new Node(function.getClass().getSimpleName(), copy, children, mask);
+    }
+
+    private static Function child(List<Node> children, Function function, int mask) {
+        Node node = instrument(function, mask);
+        children.add(node);
+        return node;
+    }
+}
@@ -1,5 +1,7 @@
 package functions;
 
+import functions.meta.Approximation;
+import functions.meta.CachingFunction;
 import functions.meta.Composition;
 import functions.meta.Mult;
 import functions.meta.Power;
@@ -7,6 +9,13 @@ import functions.meta.Scale;
 import functions.meta.Shift;
 import functions.meta.Sum;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 public final class Functions {
     private Functions() {
         throw new AssertionError("Utility class should not be instantiated");
@@ -36,6 +45,25 @@ public final class Functions {
         return new Composition(f1, f2);
     }
 
+    /**
+     * Wraps the function into a thread-safe cache of at most {@code capacity} computed values.
+     */
+    public static CachingFunction cached(Function f, int capacity) {
+        return new CachingFunction(f, capacity, true);
+    }
+
+    public static CachingFunction cached(Function f, int capacity, boolean threadSafe) {
+        return new CachingFunction(f, capacity, threadSafe);
+    }
+
+    /**
+     * Replaces the function on [left; right] with a piecewise polynomial deviating from it by at most
+     * {@code tolerance}; see {@link Approximation} for how the bound is checked.
+     */
+    public static Approximation approximate(Function f, double left, double right, double tolerance) {
+        return new Approximation(f, left, right, tolerance);
+    }
+
     /**
      * Numerically integrates the given function on [leftX; rightX] using the trapezoidal rule.
      *
@@ -47,6 +75,28 @@ public final class Functions {
      * @throws IllegalArgumentException if borders are outside the function domain or step is non-positive
      */
     public static double integrate(Function function, double leftX, double rightX, double step) {
+        return integrateWith(function, leftX, rightX, step, null).value();
+    }
+
+    /**
+     * Integrates like {@link #integrate(Function, double, double, double)}, producing the same value when it completes,
+     * but checks {@code control} every few steps. If the control is cancelled, its deadline passes or the thread
+     * is interrupted, the integration stops and returns the part computed so far plus a coarse 16-panel estimate
+     * of the rest, with an error estimate. The interrupt status of the thread is left set.
+     *
+     * @throws IllegalArgumentException on the same conditions as {@link #integrate(Function, double, double, double)}
+     */
+    public static IntegrationResult integrate(Function function, double leftX, double rightX, double step,
+                                              IntegrationControl control) {
+        if (control == null) {
+            throw new IllegalArgumentException("Control must not be null");
+        }
+        return integrateWith(function, leftX, rightX, step, control);
+    }
+
+    // A null control never stops the integration and is never checked.
+    private static IntegrationResult integrateWith(Function function, double leftX, double rightX, double step,
+                                                   IntegrationControl control) {
         if (function == null) {
             throw new IllegalArgumentException("Function must not be null");
         }
@@ -60,30 +110,237 @@ public final class Functions {
             throw new IllegalArgumentException("Integration borders are outside function domain");
         }
 
+        IntegrateEvent event = new IntegrateEvent();
+        event.begin();
+        IntegrationResult result = trapezoid(function, leftX, rightX, step, control);
+        event.end();
+        if (event.shouldCommit()) {
+            // One evaluation per node reached, plus the end point or the 16-panel estimate of the rest.
+            long steps = (long) Math.floor((result.reachedX() - leftX) / step);
+            long tail = result.isComplete() ? (steps * step < rightX - leftX ? 1 : 0) : 17;
+            commit(event, function, leftX, rightX, step, leftX == rightX ? 0 : steps + 1 + tail, result.status());
+        }
+        return result;
+    }
+
+    private static void commit(IntegrateEvent event, Function function, double leftX, double rightX, double step,
+                               long evaluations, IntegrationResult.Status status) {
+        event.function = function.getClass().getSimpleName();
+        event.leftX = leftX;
+        event.rightX = rightX;
+        event.step = step;
+        event.evaluations = evaluations;
+        event.status = status.name();
+        event.commit();
+    }
+
+    private static IntegrationResult trapezoid(Function function, double leftX, double rightX, double step,
+                                               IntegrationControl control) {
         double length = rightX - leftX;
         if (length == 0.0) {
-            return 0.0;
+            return new IntegrationResult(0.0, 0.0, rightX, IntegrationResult.Status.COMPLETED);
         }
 
         int fullSteps = (int) Math.floor(length / step);
+        int interval = control == null ? 0 : control.getCheckInterval();
+        int untilCheck = interval;
         double x = leftX;
+        double y = function.getFunctionValue(x);
         double result = 0.0;
+        // Trapezoidal sum with the doubled step over the same nodes, for the Richardson error estimate.
+        double coarse = 0.0;
+        double evenY = y;
+        double resultAtEven = 0.0;
 
         for (int i = 0; i < fullSteps; i++) {
+            if (control != null && --untilCheck == 0) {
+                untilCheck = interval;
+                IntegrationResult.Status stop = control.check((x - leftX) / length);
+                if (stop != null) {
+                    return stopped(function, result, Math.abs(resultAtEven - coarse) / 3.0, x, rightX, stop);
+                }
+            }
             double xNext = x + step;
-            double y1 = function.getFunctionValue(x);
-            double y2 = function.getFunctionValue(xNext);
-            result += (y1 + y2) * 0.5 * step;
+            double yNext = function.getFunctionValue(xNext);
+            result += (y + yNext) * 0.5 * step;
+            if ((i & 1) == 1) {
+                coarse += (evenY + yNext) * step;
+                evenY = yNext;
+                resultAtEven = result;
+            }
             x = xNext;
+            y = yNext;
         }
 
         double remainder = rightX - x;
         if (remainder > 0.0) {
-            double y1 = function.getFunctionValue(x);
-            double y2 = function.getFunctionValue(rightX);
-            result += (y1 + y2) * 0.5 * remainder;
+            result += (y + function.getFunctionValue(rightX)) * 0.5 * remainder;
         }
+        return new IntegrationResult(result, Math.abs(resultAtEven - coarse) / 3.0, rightX,
+                IntegrationResult.Status.COMPLETED);
+    }
 
-        return result;
+    private static IntegrationResult stopped(Function function, double done, double doneError,
+                                             double reachedX, double rightX, IntegrationResult.Status status) {
+        int panels = 16;
+        double h = (rightX - reachedX) / panels;
+        double fine = 0.0;
+        double half = 0.0;
+        double previous = function.getFunctionValue(reachedX);
+        double evenY = previous;
+        for (int i = 1; i <= panels; i++) {
+            double current = function.getFunctionValue(i == panels ? rightX : reachedX + i * h);
+            fine += (previous + current) * 0.5 * h;
+            if ((i & 1) == 0) {
+                half += (evenY + current) * h;
+                evenY = current;
+            }
+            previous = current;
+        }
+        return new IntegrationResult(done + fine, doneError + Math.abs(fine - half) / 3.0, reachedX, status);
+    }
+
+    /**
+     * Integrates the function on every interval {@code [lefts[i]; rights[i]]} with the trapezoidal rule in one pass.
+     * <p>
+     * The interval ends are sorted and a single cumulative integral is swept over each connected part of their union
+     * on the grid {@code start + k * step}; the integral over an interval is the difference of the cumulative values
+     * at its ends. Overlapping intervals therefore share function evaluations: the cost is one evaluation per grid
+     * node of the union plus one per interval end, instead of one per node of every interval.
+     * The grid is shared, so results agree with {@link #integrate} within the trapezoidal error but not bit for bit.
+     *
+     * @throws IllegalArgumentException on the same conditions as {@link #integrate} for any interval,
+     *                                  or if the arrays have different lengths
+     */
+    public static double[] integrateAll(Function function, double[] lefts, double[] rights, double step) {
+        if (function == null) {
+            throw new IllegalArgumentException("Function must not be null");
+        }
+        if (lefts.length != rights.length) {
+            throw new IllegalArgumentException("Arrays of borders must have equal lengths");
+        }
+        if (!(step > 0.0)) {
+            throw new IllegalArgumentException("Step must be positive");
+        }
+        int count = lefts.length;
+        for (int i = 0; i < count; i++) {
+            if (rights[i] < lefts[i]) {
+                throw new IllegalArgumentException("Right border must not be less than left border");
+            }
+            if (lefts[i] < function.getLeftDomainBorder() || rights[i] > function.getRightDomainBorder()) {
+                throw new IllegalArgumentException("Integration borders are outside function domain");
+            }
+        }
+
+        // Ends are numbered 2i for lefts[i] and 2i + 1 for rights[i]; at equal X lefts go first.
+        Integer[] order = new Integer[2 * count];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Comparator<Integer> byX = Comparator.comparingDouble(end -> (end & 1) == 0 ? lefts[end >> 1] : rights[end >> 1]);
+        Arrays.sort(order, byX.thenComparingInt(end -> end & 1));
+
+        // Cumulative integral at every end, kept as a compensated pair so differencing does not lose precision.
+        double[] high = new double[2 * count];
+        double[] low = new double[2 * count];
+        int active = 0;
+        double start = 0.0;
+        long node = 0;
+        double nodeX = 0.0;
+        double nodeY = 0.0;
+        double sum = 0.0;
+        double compensation = 0.0;
+        for (int end : order) {
+            double x = (end & 1) == 0 ? lefts[end >> 1] : rights[end >> 1];
+            if (active == 0) {
+                start = x;
+                node = 0;
+                nodeX = x;
+                nodeY = function.getFunctionValue(x);
+                sum = 0.0;
+                compensation = 0.0;
+            }
+            while (start + (node + 1) * step <= x) {
+                double nextX = start + (node + 1) * step;
+                double nextY = function.getFunctionValue(nextX);
+                double term = (nodeY + nextY) * 0.5 * (nextX - nodeX) - compensation;
+                double total = sum + term;
+                compensation = (total - sum) - term;
+                sum = total;
+                node++;
+                nodeX = nextX;
+                nodeY = nextY;
+            }
+            double partial = x > nodeX ? (nodeY + function.getFunctionValue(x)) * 0.5 * (x - nodeX) : 0.0;
+            high[end] = sum + partial;
+            low[end] = (partial - (high[end] - sum)) - compensation;
+            active += (end & 1) == 0 ? 1 : -1;
+        }
+
+        double[] results = new double[count];
+        for (int i = 0; i < count; i++) {
+            results[i] = (high[2 * i + 1] - high[2 * i]) + (low[2 * i + 1] - low[2 * i]);
+        }
+        return results;
+    }
+
+    /**
+     * Integrates {@code functions[i]} on {@code [lefts[i]; rights[i]]} with {@code steps[i]} for every task.
+     * <p>
+     * Tasks are split into a shared core and an affine transform (for example {@code Log(b)} into {@code ln}
+     * and {@code 1 / ln(b)}, see {@link FunctionFamilies}); tasks with a structurally equal core and the same step
+     * are integrated together by {@link #integrateAll}, so each core is evaluated once per grid node of the group.
+     * Tasks that share nothing are integrated one by one, as by {@link #integrate}.
+     *
+     * @throws IllegalArgumentException if the arrays have different lengths or any task is invalid for {@link #integrate}
+     */
+    public static double[] integrateBatch(Function[] functions, double[] lefts, double[] rights, double[] steps) {
+        int count = functions.length;
+        if (lefts.length != count || rights.length != count || steps.length != count) {
+            throw new IllegalArgumentException("Arrays of tasks must have equal lengths");
+        }
+        record GroupKey(Function core, double step) {
+        }
+        Map<GroupKey, List<Integer>> groups = new LinkedHashMap<>();
+        FunctionFamilies.Member[] members = new FunctionFamilies.Member[count];
+        for (int i = 0; i < count; i++) {
+            Function function = functions[i];
+            if (function == null) {
+                throw new IllegalArgumentException("Function must not be null");
+            }
+            if (!(steps[i] > 0.0)) {
+                throw new IllegalArgumentException("Step must be positive");
+            }
+            if (rights[i] < lefts[i]) {
+                throw new IllegalArgumentException("Right border must not be less than left border");
+            }
+            if (lefts[i] < function.getLeftDomainBorder() || rights[i] > function.getRightDomainBorder()) {
+                throw new IllegalArgumentException("Integration borders are outside function domain");
+            }
+            members[i] = FunctionFamilies.decompose(function);
+            groups.computeIfAbsent(new GroupKey(members[i].core(), steps[i]), key -> new ArrayList<>()).add(i);
+        }
+
+        double[] results = new double[count];
+        for (Map.Entry<GroupKey, List<Integer>> group : groups.entrySet()) {
+            List<Integer> tasks = group.getValue();
+            if (tasks.size() == 1) {
+                int task = tasks.get(0);
+                results[task] = integrate(functions[task], lefts[task], rights[task], steps[task]);
+                continue;
+            }
+            double[] groupLefts = new double[tasks.size()];
+            double[] groupRights = new double[tasks.size()];
+            for (int j = 0; j < groupLefts.length; j++) {
+                groupLefts[j] = lefts[tasks.get(j)];
+                groupRights[j] = rights[tasks.get(j)];
+            }
+            double[] core = integrateAll(group.getKey().core(), groupLefts, groupRights, group.getKey().step());
+            for (int j = 0; j < core.length; j++) {
+                FunctionFamilies.Member member = members[tasks.get(j)];
+                results[tasks.get(j)] = member.scale() * core[j] + member.shift() * (groupRights[j] - groupLefts[j]);
+            }
+        }
+        return results;
     }
 }
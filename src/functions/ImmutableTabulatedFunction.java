@@ -0,0 +1,219 @@
+package functions;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.stream.DoubleStream;
+
+/**
+ * Tabulated function that cannot be modified, so instances may be shared freely.
+ * The fingerprint is computed once in the constructor; every modifying method throws
+ * {@link UnsupportedOperationException}. Usually obtained from {@link TabulatedFunctionRegistry#intern}.
+ */
+public final class ImmutableTabulatedFunction implements TabulatedFunction, Serializable, Cloneable {
+    private static final long serialVersionUID = 1L;
+    private static final double EPS = Math.ulp(1.0);
+
+    private final double[] xs;
+    private final double[] ys;
+    private final long fingerprint;
+
+    public ImmutableTabulatedFunction(TabulatedFunction source) {
+        PointColumns columns = PointColumns.of(source);
+        int count = columns.count();
+        xs = columns.xs;
+        ys = columns.ys;
+        long sum = 0L;
+        for (int i = 0; i < count; i++) {
+            sum += Fingerprints.term(i, xs[i], ys[i]);
+        }
+        fingerprint = Fingerprints.finish(sum, count);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= xs.length) {
+            throw new FunctionPointIndexOutOfBoundsException("Index: " + index);
+        }
+    }
+
+    @Override
+    public double getLeftDomainBorder() {
+        return xs[0];
+    }
+
+    @Override
+    public double getRightDomainBorder() {
+        return xs[xs.length - 1];
+    }
+
+    @Override
+    public int getPointsCount() {
+        return xs.length;
+    }
+
+    @Override
+    public FunctionPoint getPoint(int index) {
+        checkIndex(index);
+        return new FunctionPoint(xs[index], ys[index]);
+    }
+
+    @Override
+    public void setPoint(int index, FunctionPoint point) {
+        throw new UnsupportedOperationException("Function is immutable");
+    }
+
+    @Override
+    public double getPointX(int index) {
+        checkIndex(index);
+        return xs[index];
+    }
+
+    @Override
+    public void setPointX(int index, double x) {
+        throw new UnsupportedOperationException("Function is immutable");
+    }
+
+    @Override
+    public double getPointY(int index) {
+        checkIndex(index);
+        return ys[index];
+    }
+
+    @Override
+    public void setPointY(int index, double y) {
+        throw new UnsupportedOperationException("Function is immutable");
+    }
+
+    @Override
+    public void deletePoint(int index) {
+        throw new UnsupportedOperationException("Function is immutable");
+    }
+
+    @Override
+    public void addPoint(FunctionPoint point) {
+        throw new UnsupportedOperationException("Function is immutable");
+    }
+
+    @Override
+    public double getFunctionValue(double x) {
+        int last = xs.length - 1;
+        if (x < xs[0] - EPS || x > xs[last] + EPS) {
+            return Double.NaN;
+        }
+        if (Math.abs(x - xs[0]) <= EPS) {
+            return ys[0];
+        }
+        if (Math.abs(x - xs[last]) <= EPS) {
+            return ys[last];
+        }
+        int low = 0;
+        int high = last;
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (xs[mid] <= x) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        double k = (x - xs[low]) / (xs[high] - xs[low]);
+        return ys[low] + k * (ys[high] - ys[low]);
+    }
+
+    @Override
+    public void copyXs(double[] destination) {
+        if (destination.length < xs.length) {
+            throw new IllegalArgumentException("Destination is shorter than points count");
+        }
+        System.arraycopy(xs, 0, destination, 0, xs.length);
+    }
+
+    @Override
+    public void copyYs(double[] destination) {
+        if (destination.length < ys.length) {
+            throw new IllegalArgumentException("Destination is shorter than points count");
+        }
+        System.arraycopy(ys, 0, destination, 0, ys.length);
+    }
+
+    @Override
+    public int copyPoints(double[] xs, double[] ys) {
+        if (xs.length >= this.xs.length && ys.length >= this.ys.length) {
+            System.arraycopy(this.xs, 0, xs, 0, this.xs.length);
+            System.arraycopy(this.ys, 0, ys, 0, this.ys.length);
+        }
+        return this.xs.length;
+    }
+
+    @Override
+    public void forEachPoint(DoubleBinaryConsumer action) {
+        for (int i = 0; i < xs.length; i++) {
+            action.accept(xs[i], ys[i]);
+        }
+    }
+
+    @Override
+    public Spliterator<FunctionPoint> spliterator() {
+        return new PointSpliterator(xs, ys, 0, xs.length);
+    }
+
+    @Override
+    public DoubleStream xStream() {
+        return Arrays.stream(xs);
+    }
+
+    @Override
+    public DoubleStream yStream() {
+        return Arrays.stream(ys);
+    }
+
+    @Override
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    boolean contentEquals(TabulatedFunction other) {
+        if (xs.length != other.getPointsCount() || fingerprint != other.fingerprint()) {
+            return false;
+        }
+        return PointColumns.matches(other, xs.length, (i, x, y) ->
+                PointColumns.sameBits(xs[i], x) && PointColumns.sameBits(ys[i], y));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < xs.length; i++) {
+            builder.append(new FunctionPoint(xs[i], ys[i]));
+            if (i < xs.length - 1) {
+                builder.append(", ");
+            }
+        }
+        builder.append('}');
+        return builder.toString();
+    }
+
+    /**
+     * Rejects different immutable tables by fingerprint in O(1); interned tables are equal only to themselves.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof ImmutableTabulatedFunction other) {
+            return fingerprint == other.fingerprint && Arrays.equals(xs, other.xs) && Arrays.equals(ys, other.ys);
+        }
+        return obj instanceof TabulatedFunction other && contentEquals(other);
+    }
+
+    @Override
+    public int hashCode() {
+        return Fingerprints.toHashCode(fingerprint);
+    }
+
+    @Override
+    public ImmutableTabulatedFunction clone() {
+        return this;
+    }
+}
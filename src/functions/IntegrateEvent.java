@@ -0,0 +1,40 @@
+package functions;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for {@link Functions#integrate} calls. Only calls longer than the threshold are recorded,
+ * so short integrations on hot paths cost two clock reads.
+ */
+@Name("functions.Integrate")
+@Label("Integrate")
+@Category({"Functions"})
+@Description("Numerical integration of a function")
+@Threshold("1 ms")
+@StackTrace(false)
+final class IntegrateEvent extends Event {
+    @Label("Function")
+    String function;
+
+    @Label("Left Border")
+    double leftX;
+
+    @Label("Right Border")
+    double rightX;
+
+    @Label("Step")
+    double step;
+
+    @Label("Evaluations")
+    @Description("Number of function evaluations")
+    long evaluations;
+
+    @Label("Status")
+    String status;
+}
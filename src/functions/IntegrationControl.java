@@ -0,0 +1,100 @@
+package functions;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Stop conditions and progress reporting for {@link Functions#integrate(Function, double, double, double, IntegrationControl)}.
+ * Integration stops when the control is cancelled, its deadline passes or the integrating thread is interrupted;
+ * the conditions are checked every {@link #getCheckInterval()} steps, so the overhead does not depend on the step.
+ * A control may be shared by several integrations and cancelled from any thread.
+ */
+public class IntegrationControl {
+    private static final int DEFAULT_CHECK_INTERVAL = 1024;
+
+    private final long deadline;
+    private final boolean hasDeadline;
+    private volatile boolean cancelled;
+    private volatile DoubleConsumer progressListener;
+    private volatile int checkInterval = DEFAULT_CHECK_INTERVAL;
+
+    /**
+     * Control without a deadline: integration stops only on {@link #cancel()} or interruption.
+     */
+    public IntegrationControl() {
+        this.deadline = 0L;
+        this.hasDeadline = false;
+    }
+
+    private IntegrationControl(long deadline) {
+        this.deadline = deadline;
+        this.hasDeadline = true;
+    }
+
+    public static IntegrationControl withTimeout(long timeout, TimeUnit unit) {
+        return new IntegrationControl(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * @param deadline moment in {@link System#nanoTime()} terms
+     */
+    public static IntegrationControl withDeadline(long deadline) {
+        return new IntegrationControl(deadline);
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean hasDeadline() {
+        return hasDeadline;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Listener receiving the completed fraction of the segment, from 0 to 1, at every check.
+     */
+    public IntegrationControl setProgressListener(DoubleConsumer listener) {
+        this.progressListener = listener;
+        return this;
+    }
+
+    public int getCheckInterval() {
+        return checkInterval;
+    }
+
+    public IntegrationControl setCheckInterval(int steps) {
+        if (steps < 1) {
+            throw new IllegalArgumentException("Check interval must be positive");
+        }
+        this.checkInterval = steps;
+        return this;
+    }
+
+    /**
+     * Reports progress and returns the reason to stop, or null to continue.
+     */
+    IntegrationResult.Status check(double progress) {
+        DoubleConsumer listener = progressListener;
+        if (listener != null) {
+            listener.accept(progress);
+        }
+        if (cancelled) {
+            return IntegrationResult.Status.CANCELLED;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            return IntegrationResult.Status.INTERRUPTED;
+        }
+        if (hasDeadline && System.nanoTime() - deadline >= 0) {
+            return IntegrationResult.Status.TIMED_OUT;
+        }
+        return null;
+    }
+}
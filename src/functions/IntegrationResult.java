@@ -0,0 +1,23 @@
+package functions;
+
+/**
+ * Outcome of a controlled integration.
+ *
+ * @param value         the integral for a completed integration; otherwise the integral up to {@code reachedX}
+ *                      plus a coarse estimate of the rest of the segment
+ * @param errorEstimate estimated absolute error of {@code value}: the Richardson estimate of the trapezoidal error
+ *                      of the integrated part, plus the uncertainty of the coarse remainder if integration stopped
+ * @param reachedX      right end of the part integrated with the requested step
+ */
+public record IntegrationResult(double value, double errorEstimate, double reachedX, Status status) {
+    public enum Status {
+        COMPLETED,
+        CANCELLED,
+        INTERRUPTED,
+        TIMED_OUT
+    }
+
+    public boolean isComplete() {
+        return status == Status.COMPLETED;
+    }
+}
@@ -0,0 +1,301 @@
+package functions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Memoizing front end of {@link Functions#integrate}.
+ * <p>
+ * A task is identified by the borders, the step and a 128-bit digest of the {@link FunctionDescriptors descriptor}
+ * of its function, in which tabulated functions are represented by their fingerprints. Keys have a fixed size
+ * whatever the tables, trees equal by {@code equals} share results, and a tabulated function changed after
+ * its integral was cached gets a different key. Results are kept in a bounded in-memory LRU and, optionally,
+ * in an append-only file that survives restarts: on open the file is scanned into a hash-to-offset index and
+ * a torn last record left by a crash is cut off. Functions without a descriptor are integrated directly
+ * and never cached.
+ * Thread-safe; concurrent misses on the same task may compute it more than once.
+ */
+public class IntegrationResultCache implements Closeable {
+    private static final int RECORD_OVERHEAD = 4 + 8 + 4;
+    // Borders, step and the two halves of the function digest.
+    private static final int KEY_LENGTH = 3 * 8 + 2 * 8;
+
+    private static final class Key {
+        final byte[] bytes;
+        final long hash;
+
+        Key(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = hash64(bytes);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key other && hash == other.hash && Arrays.equals(bytes, other.bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+
+    private final int memoryCapacity;
+    private final LinkedHashMap<Key, Double> memory;
+    private final FileChannel store;
+    // Offset of the latest record for each key hash; a hash collision makes the older record unreachable.
+    private final Map<Long, Long> index = new HashMap<>();
+    private final CRC32 crc = new CRC32();
+    private long storeSize;
+    private long memoryHits;
+    private long diskHits;
+    private long misses;
+    private long uncacheable;
+
+    public IntegrationResultCache(int memoryCapacity) {
+        this(memoryCapacity, null);
+    }
+
+    /**
+     * @param store file of the persistent layer, created if missing; null keeps results in memory only
+     */
+    public IntegrationResultCache(int memoryCapacity, Path store) {
+        if (memoryCapacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.memoryCapacity = memoryCapacity;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Double> eldest) {
+                return size() > IntegrationResultCache.this.memoryCapacity;
+            }
+        };
+        if (store == null) {
+            this.store = null;
+            return;
+        }
+        try {
+            this.store = FileChannel.open(store, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            loadIndex();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open integration cache " + store, e);
+        }
+    }
+
+    private void loadIndex() throws IOException {
+        long size = store.size();
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(4);
+        while (offset + RECORD_OVERHEAD <= size) {
+            header.clear();
+            store.read(header, offset);
+            int keyLength = header.flip().getInt();
+            if (keyLength < 0 || offset + RECORD_OVERHEAD + keyLength > size) {
+                break;
+            }
+            ByteBuffer record = ByteBuffer.allocate(keyLength + 8 + 4);
+            store.read(record, offset + 4);
+            record.flip();
+            byte[] key = new byte[keyLength];
+            record.get(key);
+            double value = record.getDouble();
+            if (record.getInt() != checksum(key, value)) {
+                break;
+            }
+            // Records with keys of another length were written by an older version and are never matched.
+            if (keyLength == KEY_LENGTH) {
+                index.put(hash64(key), offset);
+            }
+            offset += RECORD_OVERHEAD + keyLength;
+        }
+        if (offset < size) {
+            store.truncate(offset);
+        }
+        storeSize = offset;
+    }
+
+    /**
+     * Same contract as {@link Functions#integrate}; its exceptions propagate and are never cached.
+     */
+    public double integrate(Function function, double leftX, double rightX, double step) {
+        if (function == null) {
+            throw new IllegalArgumentException("Function must not be null");
+        }
+        Key key = keyOf(function, leftX, rightX, step);
+        if (key == null) {
+            synchronized (this) {
+                uncacheable++;
+            }
+            return Functions.integrate(function, leftX, rightX, step);
+        }
+        Double cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        double result = Functions.integrate(function, leftX, rightX, step);
+        store(key, result);
+        return result;
+    }
+
+    /**
+     * Controlled variant of {@link #integrate(Function, double, double, double)}: a miss is integrated with
+     * {@link Functions#integrate(Function, double, double, double, IntegrationControl)} and cached only if it
+     * completes. A hit is returned as completed with a NaN error estimate, as only values are stored.
+     */
+    public IntegrationResult integrate(Function function, double leftX, double rightX, double step,
+                                       IntegrationControl control) {
+        if (function == null || control == null) {
+            throw new IllegalArgumentException("Function and control must not be null");
+        }
+        Key key = keyOf(function, leftX, rightX, step);
+        if (key == null) {
+            synchronized (this) {
+                uncacheable++;
+            }
+            return Functions.integrate(function, leftX, rightX, step, control);
+        }
+        Double cached = lookup(key);
+        if (cached != null) {
+            return new IntegrationResult(cached, Double.NaN, rightX, IntegrationResult.Status.COMPLETED);
+        }
+        IntegrationResult result = Functions.integrate(function, leftX, rightX, step, control);
+        if (result.isComplete()) {
+            store(key, result.value());
+        }
+        return result;
+    }
+
+    private static Key keyOf(Function function, double leftX, double rightX, double step) {
+        long[] digest;
+        try {
+            digest = FunctionDescriptors.digest(function);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(KEY_LENGTH);
+        bytes.putDouble(leftX).putDouble(rightX).putDouble(step).putLong(digest[0]).putLong(digest[1]);
+        return new Key(bytes.array());
+    }
+
+    private synchronized Double lookup(Key key) {
+        Double value = memory.get(key);
+        if (value != null) {
+            memoryHits++;
+            return value;
+        }
+        if (store != null) {
+            Long offset = index.get(key.hash);
+            if (offset != null) {
+                value = readRecord(offset, key);
+                if (value != null) {
+                    diskHits++;
+                    memory.put(key, value);
+                    return value;
+                }
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    private Double readRecord(long offset, Key key) {
+        try {
+            ByteBuffer record = ByteBuffer.allocate(RECORD_OVERHEAD + key.bytes.length);
+            store.read(record, offset);
+            record.flip();
+            if (record.getInt() != key.bytes.length) {
+                return null;
+            }
+            byte[] stored = new byte[key.bytes.length];
+            record.get(stored);
+            return Arrays.equals(stored, key.bytes) ? record.getDouble() : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private synchronized void store(Key key, double value) {
+        memory.put(key, value);
+        if (store == null || index.containsKey(key.hash) && readRecord(index.get(key.hash), key) != null) {
+            return;
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_OVERHEAD + key.bytes.length);
+        record.putInt(key.bytes.length).put(key.bytes).putDouble(value).putInt(checksum(key.bytes, value)).flip();
+        try {
+            long offset = storeSize;
+            while (record.hasRemaining()) {
+                storeSize += store.write(record, storeSize);
+            }
+            index.put(key.hash, offset);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int checksum(byte[] key, double value) {
+        crc.reset();
+        crc.update(key);
+        crc.update(ByteBuffer.allocate(8).putDouble(value).flip());
+        return (int) crc.getValue();
+    }
+
+    private static long hash64(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        return hash ^ (hash >>> 29);
+    }
+
+    public synchronized long getMemoryHits() {
+        return memoryHits;
+    }
+
+    public synchronized long getDiskHits() {
+        return diskHits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Calls for functions without a descriptor, which bypass the cache.
+     */
+    public synchronized long getUncacheable() {
+        return uncacheable;
+    }
+
+    /**
+     * Share of cacheable calls answered from memory or disk, 0 before the first call.
+     */
+    public synchronized double getHitRate() {
+        long hits = memoryHits + diskHits;
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * Number of results on disk, or in memory for a memory-only cache.
+     */
+    public synchronized int size() {
+        return store == null ? memory.size() : index.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (store != null) {
+            store.close();
+        }
+    }
+}
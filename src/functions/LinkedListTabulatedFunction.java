@@ -4,68 +4,90 @@ import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 public class LinkedListTabulatedFunction implements TabulatedFunction, Externalizable, Cloneable {
     private static final long serialVersionUID = 1L;
     private static final double EPS = Math.ulp(1.0);
-
-    private static class FunctionNode {
-        FunctionPoint point;
-        FunctionNode prev;
-        FunctionNode next;
-    }
-
-    private FunctionNode head = new FunctionNode();
+    private static final AtomicReferenceFieldUpdater<LinkedListTabulatedFunction, AtomicInteger> OWNERS =
+            AtomicReferenceFieldUpdater.newUpdater(
+                    LinkedListTabulatedFunction.class, AtomicInteger.class, "owners");
+    private static final int HEAD = 0;
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MIN_FREE_TO_COMPACT = 32;
+
+    // Nodes live in parallel primitive arrays, links are slot indices; slot HEAD is the list sentinel.
+    // Deleted slots are chained through next[] into a free list and reused by insertions.
+    private double[] xs;
+    private double[] ys;
+    private int[] prev;
+    private int[] next;
+    private int usedSlots;
+    private int freeHead;
+    private int freeCount;
     private int pointsCount;
-    private FunctionNode cacheNode;
+    private int cacheSlot;
     private int cacheIndex;
+    // Number of instances sharing the node arrays after clone(); null while the arrays are exclusively owned.
+    private transient volatile AtomicInteger owners;
+    // Raw sum of Fingerprints terms, valid while fingerprintValid is set; replacing a point updates it in place.
+    // The flag is volatile and set after the sum, so threads only reading a shared table never see a stale sum.
+    private long fingerprintSum;
+    private volatile boolean fingerprintValid;
 
     public LinkedListTabulatedFunction() {
-        initEmptyList();
+        initEmptyList(INITIAL_CAPACITY);
     }
 
     public LinkedListTabulatedFunction(double leftX, double rightX, int pointsCount) {
-        this();
         validateBorders(leftX, rightX, pointsCount);
+        initEmptyList(pointsCount + 1);
         double step = (rightX - leftX) / (pointsCount - 1);
         for (int i = 0; i < pointsCount; i++) {
-            double x = leftX + step * i;
-            FunctionNode node = addNodeToTail();
-            node.point = new FunctionPoint(x, 0.0);
+            addNodeToTail(leftX + step * i, 0.0);
         }
     }
 
     public LinkedListTabulatedFunction(double leftX, double rightX, double[] values) {
         this(leftX, rightX, values.length);
-        FunctionNode node = head.next;
+        int slot = next[HEAD];
         for (double value : values) {
-            node.point.setY(value);
-            node = node.next;
+            ys[slot] = value;
+            slot = next[slot];
         }
     }
 
     public LinkedListTabulatedFunction(FunctionPoint[] sourcePoints) {
-        this();
         if (sourcePoints.length < 2) {
             throw new IllegalArgumentException("At least two points are required");
         }
+        initEmptyList(sourcePoints.length + 1);
         FunctionPoint previous = null;
         for (FunctionPoint point : sourcePoints) {
             if (previous != null && !(point.getX() - previous.getX() > EPS)) {
                 throw new IllegalArgumentException("Points must be strictly increasing by X");
             }
-            FunctionNode node = addNodeToTail();
-            node.point = point.clone();
+            addNodeToTail(point.getX(), point.getY());
             previous = point;
         }
     }
 
-    private void initEmptyList() {
-        head.next = head;
-        head.prev = head;
+    private void initEmptyList(int capacity) {
+        xs = new double[capacity];
+        ys = new double[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+        next[HEAD] = HEAD;
+        prev[HEAD] = HEAD;
+        usedSlots = 1;
+        freeHead = NONE;
+        freeCount = 0;
         pointsCount = 0;
-        cacheNode = null;
-        cacheIndex = -1;
+        fingerprintValid = false;
+        dropCache();
     }
 
     private void validateBorders(double leftX, double rightX, int count) {
@@ -77,101 +99,183 @@ public class LinkedListTabulatedFunction implements TabulatedFunction, Externali
         }
     }
 
+    private void ensureExclusiveStorage() {
+        AtomicInteger shared = owners;
+        if (shared == null) {
+            return;
+        }
+        // Copy while still counted, so a sharer that leaves later never writes to storage being copied.
+        // Two sharers leaving at once may both copy, which is harmless.
+        if (shared.get() > 1) {
+            xs = xs.clone();
+            ys = ys.clone();
+            prev = prev.clone();
+            next = next.clone();
+        }
+        shared.decrementAndGet();
+        owners = null;
+    }
+
+    private void replaceTerm(int index, int slot, double x, double y) {
+        if (fingerprintValid) {
+            fingerprintSum += Fingerprints.term(index, x, y) - Fingerprints.term(index, xs[slot], ys[slot]);
+        }
+    }
+
     private void dropCache() {
-        cacheNode = null;
+        cacheSlot = NONE;
         cacheIndex = -1;
     }
 
-    private FunctionNode getNodeByIndex(int index) {
+    private int getSlotByIndex(int index) {
         if (index < 0 || index >= pointsCount) {
             throw new FunctionPointIndexOutOfBoundsException("Index: " + index);
         }
-        FunctionNode current;
+        int current;
         int currentIndex;
         int distanceFromHead = index;
         int distanceFromTail = pointsCount - 1 - index;
-        int cacheDistance = cacheNode == null ? Integer.MAX_VALUE : Math.abs(index - cacheIndex);
+        int cacheDistance = cacheSlot == NONE ? Integer.MAX_VALUE : Math.abs(index - cacheIndex);
 
         if (cacheDistance <= distanceFromHead && cacheDistance <= distanceFromTail) {
-            current = cacheNode;
+            current = cacheSlot;
             currentIndex = cacheIndex;
         } else if (distanceFromHead <= distanceFromTail) {
-            current = head.next;
+            current = next[HEAD];
             currentIndex = 0;
         } else {
-            current = head.prev;
+            current = prev[HEAD];
             currentIndex = pointsCount - 1;
         }
 
         while (currentIndex < index) {
-            current = current.next;
+            current = next[current];
             currentIndex++;
         }
         while (currentIndex > index) {
-            current = current.prev;
+            current = prev[current];
             currentIndex--;
         }
 
-        cacheNode = current;
+        cacheSlot = current;
         cacheIndex = index;
         return current;
     }
 
-    private FunctionNode addNodeToTail() {
-        FunctionNode node = new FunctionNode();
-        node.prev = head.prev;
-        node.next = head;
-        head.prev.next = node;
-        head.prev = node;
+    private int allocateSlot() {
+        if (freeHead != NONE) {
+            int slot = freeHead;
+            freeHead = next[slot];
+            freeCount--;
+            return slot;
+        }
+        if (usedSlots == xs.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, xs.length + (xs.length >> 1));
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            next = Arrays.copyOf(next, capacity);
+        }
+        return usedSlots++;
+    }
+
+    private void releaseSlot(int slot) {
+        next[slot] = freeHead;
+        freeHead = slot;
+        freeCount++;
+        if (freeCount >= MIN_FREE_TO_COMPACT && freeCount > pointsCount) {
+            compact();
+        }
+    }
+
+    // Rewrites the list into slots 1..n in list order, dropping free slots and restoring sequential layout.
+    private void compact() {
+        int capacity = Math.max(INITIAL_CAPACITY, pointsCount + 1 + (pointsCount >> 1));
+        double[] newXs = new double[capacity];
+        double[] newYs = new double[capacity];
+        int[] newPrev = new int[capacity];
+        int[] newNext = new int[capacity];
+        int slot = next[HEAD];
+        for (int i = 1; i <= pointsCount; i++) {
+            newXs[i] = xs[slot];
+            newYs[i] = ys[slot];
+            newPrev[i] = i - 1;
+            newNext[i] = i + 1;
+            slot = next[slot];
+        }
+        newNext[pointsCount] = HEAD;
+        newNext[HEAD] = pointsCount == 0 ? HEAD : 1;
+        newPrev[HEAD] = pointsCount;
+        xs = newXs;
+        ys = newYs;
+        prev = newPrev;
+        next = newNext;
+        usedSlots = pointsCount + 1;
+        freeHead = NONE;
+        freeCount = 0;
+        dropCache();
+    }
+
+    private int addNodeToTail(double x, double y) {
+        int slot = allocateSlot();
+        xs[slot] = x;
+        ys[slot] = y;
+        int tail = prev[HEAD];
+        prev[slot] = tail;
+        next[slot] = HEAD;
+        next[tail] = slot;
+        prev[HEAD] = slot;
         pointsCount++;
         dropCache();
-        return node;
+        return slot;
     }
 
-    private FunctionNode addNodeByIndex(int index) {
+    private int addNodeByIndex(int index, double x, double y) {
         if (index < 0 || index > pointsCount) {
             throw new FunctionPointIndexOutOfBoundsException("Index: " + index);
         }
         if (index == pointsCount) {
-            return addNodeToTail();
-        }
-        FunctionNode nextNode = getNodeByIndex(index);
-        FunctionNode node = new FunctionNode();
-        node.next = nextNode;
-        node.prev = nextNode.prev;
-        nextNode.prev.next = node;
-        nextNode.prev = node;
+            return addNodeToTail(x, y);
+        }
+        int nextSlot = getSlotByIndex(index);
+        int slot = allocateSlot();
+        xs[slot] = x;
+        ys[slot] = y;
+        next[slot] = nextSlot;
+        prev[slot] = prev[nextSlot];
+        next[prev[nextSlot]] = slot;
+        prev[nextSlot] = slot;
         pointsCount++;
         dropCache();
-        return node;
+        return slot;
     }
 
-    private FunctionNode deleteNodeByIndex(int index) {
-        FunctionNode node = getNodeByIndex(index);
-        node.prev.next = node.next;
-        node.next.prev = node.prev;
+    private void deleteNodeByIndex(int index) {
+        int slot = getSlotByIndex(index);
+        next[prev[slot]] = next[slot];
+        prev[next[slot]] = prev[slot];
         pointsCount--;
         dropCache();
-        return node;
+        releaseSlot(slot);
     }
 
-    private void ensureXFits(FunctionNode node, double x) throws InappropriateFunctionPointException {
-        if (node.prev != head && !(x - node.prev.point.getX() > EPS)) {
+    private void ensureXFits(int slot, double x) throws InappropriateFunctionPointException {
+        if (prev[slot] != HEAD && !(x - xs[prev[slot]] > EPS)) {
             throw new InappropriateFunctionPointException("X overlaps previous point");
         }
-        if (node.next != head && !(node.next.point.getX() - x > EPS)) {
+        if (next[slot] != HEAD && !(xs[next[slot]] - x > EPS)) {
             throw new InappropriateFunctionPointException("X overlaps next point");
         }
     }
 
     @Override
     public double getLeftDomainBorder() {
-        return head.next.point.getX();
+        return xs[next[HEAD]];
     }
 
     @Override
     public double getRightDomainBorder() {
-        return head.prev.point.getX();
+        return xs[prev[HEAD]];
     }
 
     @Override
@@ -181,36 +285,45 @@ public class LinkedListTabulatedFunction implements TabulatedFunction, Externali
 
     @Override
     public FunctionPoint getPoint(int index) {
-        return getNodeByIndex(index).point.clone();
+        int slot = getSlotByIndex(index);
+        return new FunctionPoint(xs[slot], ys[slot]);
     }
 
     @Override
     public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
-        FunctionNode node = getNodeByIndex(index);
-        ensureXFits(node, point.getX());
-        node.point = point.clone();
+        ensureExclusiveStorage();
+        int slot = getSlotByIndex(index);
+        ensureXFits(slot, point.getX());
+        replaceTerm(index, slot, point.getX(), point.getY());
+        xs[slot] = point.getX();
+        ys[slot] = point.getY();
     }
 
     @Override
     public double getPointX(int index) {
-        return getNodeByIndex(index).point.getX();
+        return xs[getSlotByIndex(index)];
     }
 
     @Override
     public void setPointX(int index, double x) throws InappropriateFunctionPointException {
-        FunctionNode node = getNodeByIndex(index);
-        ensureXFits(node, x);
-        node.point.setX(x);
+        ensureExclusiveStorage();
+        int slot = getSlotByIndex(index);
+        ensureXFits(slot, x);
+        replaceTerm(index, slot, x, ys[slot]);
+        xs[slot] = x;
     }
 
     @Override
     public double getPointY(int index) {
-        return getNodeByIndex(index).point.getY();
+        return ys[getSlotByIndex(index)];
     }
 
     @Override
     public void setPointY(int index, double y) {
-        getNodeByIndex(index).point.setY(y);
+        ensureExclusiveStorage();
+        int slot = getSlotByIndex(index);
+        replaceTerm(index, slot, xs[slot], y);
+        ys[slot] = y;
     }
 
     @Override
@@ -218,22 +331,25 @@ public class LinkedListTabulatedFunction implements TabulatedFunction, Externali
         if (pointsCount < 3) {
             throw new IllegalStateException("Function must keep at least two points");
         }
+        ensureExclusiveStorage();
+        fingerprintValid = false;
         deleteNodeByIndex(index);
     }
 
     @Override
     public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        ensureExclusiveStorage();
         int index = 0;
-        FunctionNode current = head.next;
-        while (current != head && current.point.getX() < point.getX() - EPS) {
-            current = current.next;
+        int current = next[HEAD];
+        while (current != HEAD && xs[current] < point.getX() - EPS) {
+            current = next[current];
             index++;
         }
-        if (current != head && Math.abs(current.point.getX() - point.getX()) <= EPS) {
+        if (current != HEAD && Math.abs(xs[current] - point.getX()) <= EPS) {
             throw new InappropriateFunctionPointException("Point with same X already exists");
         }
-        FunctionNode node = addNodeByIndex(index);
-        node.point = point.clone();
+        fingerprintValid = false;
+        addNodeByIndex(index, point.getX(), point.getY());
     }
 
     @Override
@@ -243,39 +359,99 @@ public class LinkedListTabulatedFunction implements TabulatedFunction, Externali
             return Double.NaN;
         }
         if (Math.abs(x - getLeftDomainBorder()) <= EPS) {
-            return head.next.point.getY();
+            return ys[next[HEAD]];
         }
         if (Math.abs(x - getRightDomainBorder()) <= EPS) {
-            return head.prev.point.getY();
+            return ys[prev[HEAD]];
         }
-        FunctionNode node = head.next;
-        while (node.next != head) {
-            double x1 = node.point.getX();
-            double x2 = node.next.point.getX();
+        int slot = next[HEAD];
+        while (next[slot] != HEAD) {
+            int following = next[slot];
+            double x1 = xs[slot];
+            double x2 = xs[following];
             if (x >= x1 - EPS && x <= x2 + EPS) {
-                double y1 = node.point.getY();
-                double y2 = node.next.point.getY();
+                double y1 = ys[slot];
+                double y2 = ys[following];
                 double k = (x - x1) / (x2 - x1);
                 return y1 + k * (y2 - y1);
             }
-            node = node.next;
+            slot = following;
         }
         return Double.NaN;
     }
 
-    private static boolean pointsEqual(FunctionPoint first, FunctionPoint second) {
-        return Double.doubleToLongBits(first.getX()) == Double.doubleToLongBits(second.getX())
-                && Double.doubleToLongBits(first.getY()) == Double.doubleToLongBits(second.getY());
+    private void checkDestination(double[] destination) {
+        if (destination.length < pointsCount) {
+            throw new IllegalArgumentException("Destination is shorter than points count");
+        }
+    }
+
+    @Override
+    public void copyXs(double[] destination) {
+        checkDestination(destination);
+        int slot = next[HEAD];
+        for (int i = 0; slot != HEAD; i++) {
+            destination[i] = xs[slot];
+            slot = next[slot];
+        }
+    }
+
+    @Override
+    public void copyYs(double[] destination) {
+        checkDestination(destination);
+        int slot = next[HEAD];
+        for (int i = 0; slot != HEAD; i++) {
+            destination[i] = ys[slot];
+            slot = next[slot];
+        }
+    }
+
+    @Override
+    public int copyPoints(double[] xs, double[] ys) {
+        if (xs.length < pointsCount || ys.length < pointsCount) {
+            return pointsCount;
+        }
+        int slot = next[HEAD];
+        for (int i = 0; slot != HEAD; i++) {
+            xs[i] = this.xs[slot];
+            ys[i] = this.ys[slot];
+            slot = next[slot];
+        }
+        return pointsCount;
+    }
+
+    @Override
+    public void forEachPoint(DoubleBinaryConsumer action) {
+        int slot = next[HEAD];
+        while (slot != HEAD) {
+            action.accept(xs[slot], ys[slot]);
+            slot = next[slot];
+        }
+    }
+
+    @Override
+    public long fingerprint() {
+        if (!fingerprintValid) {
+            long sum = 0L;
+            int slot = next[HEAD];
+            for (int i = 0; slot != HEAD; i++) {
+                sum += Fingerprints.term(i, xs[slot], ys[slot]);
+                slot = next[slot];
+            }
+            fingerprintSum = sum;
+            fingerprintValid = true;
+        }
+        return Fingerprints.finish(fingerprintSum, pointsCount);
     }
 
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder("{");
-        FunctionNode node = head.next;
-        while (node != head) {
-            builder.append(node.point);
-            node = node.next;
-            if (node != head) {
+        int slot = next[HEAD];
+        while (slot != HEAD) {
+            builder.append(new FunctionPoint(xs[slot], ys[slot]));
+            slot = next[slot];
+            if (slot != HEAD) {
                 builder.append(", ");
             }
         }
@@ -292,17 +468,19 @@ public class LinkedListTabulatedFunction implements TabulatedFunction, Externali
             return false;
         }
         if (obj instanceof LinkedListTabulatedFunction other) {
-            if (pointsCount != other.pointsCount) {
+            if (pointsCount != other.pointsCount
+                    || fingerprintValid && other.fingerprintValid && fingerprintSum != other.fingerprintSum) {
                 return false;
             }
-            FunctionNode left = head.next;
-            FunctionNode right = other.head.next;
-            while (left != head) {
-                if (!pointsEqual(left.point, right.point)) {
+            int left = next[HEAD];
+            int right = other.next[HEAD];
+            while (left != HEAD) {
+                if (Double.doubleToLongBits(xs[left]) != Double.doubleToLongBits(other.xs[right])
+                        || Double.doubleToLongBits(ys[left]) != Double.doubleToLongBits(other.ys[right])) {
                     return false;
                 }
-                left = left.next;
-                right = right.next;
+                left = next[left];
+                right = other.next[right];
             }
             return true;
         }
@@ -312,47 +490,34 @@ public class LinkedListTabulatedFunction implements TabulatedFunction, Externali
         if (pointsCount != other.getPointsCount()) {
             return false;
         }
-        FunctionNode node = head.next;
-        int index = 0;
-        while (node != head) {
-            if (!pointsEqual(node.point, other.getPoint(index++))) {
-                return false;
-            }
-            node = node.next;
-        }
-        return true;
+        int[] slot = {next[HEAD]};
+        return PointColumns.matches(other, pointsCount, (i, x, y) -> {
+            int current = slot[0];
+            slot[0] = next[current];
+            return PointColumns.sameBits(xs[current], x) && PointColumns.sameBits(ys[current], y);
+        });
     }
 
     @Override
     public int hashCode() {
-        int hash = pointsCount;
-        FunctionNode node = head.next;
-        while (node != head) {
-            hash ^= node.point.hashCode();
-            node = node.next;
-        }
-        return hash;
+        return Fingerprints.toHashCode(fingerprint());
     }
 
+    /**
+     * Returns a copy sharing the node arrays with this function in O(1).
+     * Whichever of them is modified first copies the arrays before the change.
+     */
     @Override
     public LinkedListTabulatedFunction clone() {
         try {
-            LinkedListTabulatedFunction copy = (LinkedListTabulatedFunction) super.clone();
-            copy.head = new FunctionNode();
-            copy.initEmptyList();
-            FunctionNode tail = copy.head;
-            FunctionNode node = this.head.next;
-            while (node != this.head) {
-                FunctionNode newNode = new FunctionNode();
-                newNode.point = node.point.clone();
-                newNode.prev = tail;
-                newNode.next = copy.head;
-                tail.next = newNode;
-                copy.head.prev = newNode;
-                tail = newNode;
-                copy.pointsCount++;
-                node = node.next;
+            // Cloning only reads the storage, so concurrent clones of one instance must agree on a single counter.
+            AtomicInteger shared = owners;
+            if (shared == null) {
+                OWNERS.compareAndSet(this, null, new AtomicInteger(1));
+                shared = owners;
             }
+            shared.incrementAndGet();
+            LinkedListTabulatedFunction copy = (LinkedListTabulatedFunction) super.clone();
             copy.dropCache();
             return copy;
         } catch (CloneNotSupportedException e) {
@@ -363,23 +528,26 @@ public class LinkedListTabulatedFunction implements TabulatedFunction, Externali
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
         out.writeInt(pointsCount);
-        FunctionNode node = head.next;
-        while (node != head) {
-            out.writeDouble(node.point.getX());
-            out.writeDouble(node.point.getY());
-            node = node.next;
+        int slot = next[HEAD];
+        while (slot != HEAD) {
+            out.writeDouble(xs[slot]);
+            out.writeDouble(ys[slot]);
+            slot = next[slot];
         }
     }
 
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-        initEmptyList();
+        if (owners != null) {
+            owners.decrementAndGet();
+            owners = null;
+        }
         int count = in.readInt();
+        initEmptyList(count + 1);
         for (int i = 0; i < count; i++) {
             double x = in.readDouble();
             double y = in.readDouble();
-            FunctionNode node = addNodeToTail();
-            node.point = new FunctionPoint(x, y);
+            addNodeToTail(x, y);
         }
     }
 }
@@ -0,0 +1,69 @@
+package functions;
+
+import java.util.Arrays;
+
+/**
+ * Coordinate columns of one consistent state of a tabulated function, and the point-by-point comparison
+ * used by the cross-implementation {@code equals} methods.
+ */
+final class PointColumns {
+    /**
+     * Own point source for {@link #matches}, always called with consecutive indexes starting from 0.
+     */
+    @FunctionalInterface
+    interface Cursor {
+        boolean matches(int index, double x, double y);
+    }
+
+    final double[] xs;
+    final double[] ys;
+
+    private PointColumns(double[] xs, double[] ys) {
+        this.xs = xs;
+        this.ys = ys;
+    }
+
+    int count() {
+        return xs.length;
+    }
+
+    /**
+     * Copies both columns through {@link TabulatedFunction#copyPoints}, so a function modified concurrently
+     * still yields X and Y of the same version.
+     */
+    static PointColumns of(TabulatedFunction function) {
+        int capacity = function.getPointsCount();
+        while (true) {
+            double[] xs = new double[capacity];
+            double[] ys = new double[capacity];
+            int count = function.copyPoints(xs, ys);
+            if (count == capacity) {
+                return new PointColumns(xs, ys);
+            }
+            if (count < capacity) {
+                return new PointColumns(Arrays.copyOf(xs, count), Arrays.copyOf(ys, count));
+            }
+            capacity = count;
+        }
+    }
+
+    /**
+     * Compares the points of {@code other}, read in a single {@code forEachPoint} pass, with {@code count} own points.
+     * Coordinates are compared by their bits, as in the fingerprints.
+     */
+    static boolean matches(TabulatedFunction other, int count, Cursor own) {
+        int[] position = {0};
+        boolean[] same = {true};
+        other.forEachPoint((x, y) -> {
+            int index = position[0]++;
+            if (same[0] && (index >= count || !own.matches(index, x, y))) {
+                same[0] = false;
+            }
+        });
+        return same[0] && position[0] == count;
+    }
+
+    static boolean sameBits(double first, double second) {
+        return Double.doubleToLongBits(first) == Double.doubleToLongBits(second);
+    }
+}
@@ -0,0 +1,180 @@
+package functions;
+
+import java.util.Arrays;
+
+/**
+ * Segment tree over a tabulated function: sums of trapezoid areas of segments and minimum and maximum of point Y.
+ * Point updates and range queries take O(log n); leaves of unused capacity hold neutral values.
+ */
+final class PointIndex implements Cloneable {
+    private final int leaves;
+    private double[] areas;
+    private double[] minYs;
+    private double[] maxYs;
+
+    PointIndex(double[] xs, double[] ys, int count) {
+        int capacity = 1;
+        while (capacity < count) {
+            capacity <<= 1;
+        }
+        leaves = capacity;
+        areas = new double[2 * capacity];
+        minYs = new double[2 * capacity];
+        maxYs = new double[2 * capacity];
+        Arrays.fill(minYs, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxYs, Double.NEGATIVE_INFINITY);
+        for (int i = 0; i < count; i++) {
+            minYs[capacity + i] = ys[i];
+            maxYs[capacity + i] = ys[i];
+            if (i < count - 1) {
+                areas[capacity + i] = area(xs[i], ys[i], xs[i + 1], ys[i + 1]);
+            }
+        }
+        for (int node = capacity - 1; node > 0; node--) {
+            pull(node);
+        }
+    }
+
+    static double area(double x1, double y1, double x2, double y2) {
+        return (x2 - x1) * (y1 + y2) * 0.5;
+    }
+
+    private void pull(int node) {
+        areas[node] = areas[2 * node] + areas[2 * node + 1];
+        minYs[node] = Math.min(minYs[2 * node], minYs[2 * node + 1]);
+        maxYs[node] = Math.max(maxYs[2 * node], maxYs[2 * node + 1]);
+    }
+
+    /**
+     * Replaces the area of the segment between points {@code segment} and {@code segment + 1}.
+     */
+    void setArea(int segment, double area) {
+        int node = leaves + segment;
+        areas[node] = area;
+        for (node >>= 1; node > 0; node >>= 1) {
+            areas[node] = areas[2 * node] + areas[2 * node + 1];
+        }
+    }
+
+    void setY(int point, double y) {
+        int node = leaves + point;
+        minYs[node] = y;
+        maxYs[node] = y;
+        for (node >>= 1; node > 0; node >>= 1) {
+            minYs[node] = Math.min(minYs[2 * node], minYs[2 * node + 1]);
+            maxYs[node] = Math.max(maxYs[2 * node], maxYs[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Whether a table of {@code count} points fits without rebuilding the tree.
+     */
+    boolean fits(int count) {
+        return count <= leaves;
+    }
+
+    /**
+     * Makes room for a point inserted at {@code point} into a table that now has {@code count} points: the leaves
+     * after it move one place right and only their ancestors are recomputed. The areas of the segments around
+     * the new point are left to {@link #setArea}.
+     */
+    void insert(int point, int count, double y) {
+        int shifted = count - 1 - point;
+        System.arraycopy(minYs, leaves + point, minYs, leaves + point + 1, shifted);
+        System.arraycopy(maxYs, leaves + point, maxYs, leaves + point + 1, shifted);
+        minYs[leaves + point] = y;
+        maxYs[leaves + point] = y;
+        if (shifted > 1) {
+            System.arraycopy(areas, leaves + point, areas, leaves + point + 1, shifted - 1);
+        }
+        pullRange(point, count - 1);
+    }
+
+    /**
+     * Removes the point at {@code point} from a table that now has {@code count} points: the leaves after it move
+     * one place left and only their ancestors are recomputed. The area of the segment now joining the neighbours
+     * of the removed point is left to {@link #setArea}.
+     */
+    void delete(int point, int count) {
+        int shifted = count - point;
+        System.arraycopy(minYs, leaves + point + 1, minYs, leaves + point, shifted);
+        System.arraycopy(maxYs, leaves + point + 1, maxYs, leaves + point, shifted);
+        minYs[leaves + count] = Double.POSITIVE_INFINITY;
+        maxYs[leaves + count] = Double.NEGATIVE_INFINITY;
+        if (shifted > 1) {
+            System.arraycopy(areas, leaves + point + 1, areas, leaves + point, shifted - 1);
+        }
+        areas[leaves + count - 1] = 0.0;
+        pullRange(Math.max(point - 1, 0), count);
+    }
+
+    private void pullRange(int fromLeaf, int toLeaf) {
+        for (int l = (leaves + fromLeaf) >> 1, r = (leaves + toLeaf) >> 1; l > 0; l >>= 1, r >>= 1) {
+            for (int node = l; node <= r; node++) {
+                pull(node);
+            }
+        }
+    }
+
+    /**
+     * Sum of areas of segments {@code [from; to)}.
+     */
+    double sumAreas(int from, int to) {
+        double left = 0.0;
+        double right = 0.0;
+        for (int l = from + leaves, r = to + leaves; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) != 0) {
+                left += areas[l++];
+            }
+            if ((r & 1) != 0) {
+                right = areas[--r] + right;
+            }
+        }
+        return left + right;
+    }
+
+    /**
+     * Minimum Y of points {@code [from; to)}, positive infinity for an empty range.
+     */
+    double minY(int from, int to) {
+        double result = Double.POSITIVE_INFINITY;
+        for (int l = from + leaves, r = to + leaves; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) != 0) {
+                result = Math.min(result, minYs[l++]);
+            }
+            if ((r & 1) != 0) {
+                result = Math.min(result, minYs[--r]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Maximum Y of points {@code [from; to)}, negative infinity for an empty range.
+     */
+    double maxY(int from, int to) {
+        double result = Double.NEGATIVE_INFINITY;
+        for (int l = from + leaves, r = to + leaves; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) != 0) {
+                result = Math.max(result, maxYs[l++]);
+            }
+            if ((r & 1) != 0) {
+                result = Math.max(result, maxYs[--r]);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public PointIndex clone() {
+        try {
+            PointIndex copy = (PointIndex) super.clone();
+            copy.areas = areas.clone();
+            copy.minYs = minYs.clone();
+            copy.maxYs = maxYs.clone();
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError("Clone should be supported", e);
+        }
+    }
+}
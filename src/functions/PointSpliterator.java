@@ -0,0 +1,59 @@
+package functions;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over a snapshot of point coordinates, split by halving the index range.
+ */
+final class PointSpliterator implements Spliterator<FunctionPoint> {
+    private final double[] xs;
+    private final double[] ys;
+    private int index;
+    private final int fence;
+
+    PointSpliterator(double[] xs, double[] ys, int origin, int fence) {
+        this.xs = xs;
+        this.ys = ys;
+        this.index = origin;
+        this.fence = fence;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super FunctionPoint> action) {
+        if (index >= fence) {
+            return false;
+        }
+        action.accept(new FunctionPoint(xs[index], ys[index]));
+        index++;
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super FunctionPoint> action) {
+        for (; index < fence; index++) {
+            action.accept(new FunctionPoint(xs[index], ys[index]));
+        }
+    }
+
+    @Override
+    public Spliterator<FunctionPoint> trySplit() {
+        int middle = (index + fence) >>> 1;
+        if (middle <= index) {
+            return null;
+        }
+        PointSpliterator prefix = new PointSpliterator(xs, ys, index, middle);
+        index = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+}
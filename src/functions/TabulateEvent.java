@@ -0,0 +1,30 @@
+package functions;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for {@link TabulatedFunctions#tabulate}.
+ */
+@Name("functions.Tabulate")
+@Label("Tabulate")
+@Category({"Functions"})
+@Threshold("1 ms")
+@StackTrace(false)
+final class TabulateEvent extends Event {
+    @Label("Function")
+    String function;
+
+    @Label("Left Border")
+    double leftX;
+
+    @Label("Right Border")
+    double rightX;
+
+    @Label("Points")
+    int points;
+}
@@ -1,5 +1,9 @@
 package functions;
 
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.stream.DoubleStream;
+
 public interface TabulatedFunction extends Function, Cloneable {
 
     int getPointsCount();
@@ -21,4 +25,94 @@ public interface TabulatedFunction extends Function, Cloneable {
     void addPoint(FunctionPoint point) throws InappropriateFunctionPointException;
 
     TabulatedFunction clone();
+
+    /**
+     * Copies X coordinates of all points into the beginning of {@code destination}.
+     *
+     * @throws IllegalArgumentException if the array is shorter than {@link #getPointsCount()}
+     */
+    default void copyXs(double[] destination) {
+        int count = getPointsCount();
+        if (destination.length < count) {
+            throw new IllegalArgumentException("Destination is shorter than points count");
+        }
+        for (int i = 0; i < count; i++) {
+            destination[i] = getPointX(i);
+        }
+    }
+
+    /**
+     * Copies Y coordinates of all points into the beginning of {@code destination}.
+     *
+     * @throws IllegalArgumentException if the array is shorter than {@link #getPointsCount()}
+     */
+    default void copyYs(double[] destination) {
+        int count = getPointsCount();
+        if (destination.length < count) {
+            throw new IllegalArgumentException("Destination is shorter than points count");
+        }
+        for (int i = 0; i < count; i++) {
+            destination[i] = getPointY(i);
+        }
+    }
+
+    /**
+     * Copies X and Y coordinates of one state of the function into the beginning of the arrays, so a concurrent
+     * modification cannot mix columns of different versions. Nothing is copied if the arrays are too short.
+     *
+     * @return points count of the copied state, or the required length if it exceeds the length of either array
+     */
+    default int copyPoints(double[] xs, double[] ys) {
+        int count = getPointsCount();
+        if (xs.length < count || ys.length < count) {
+            return count;
+        }
+        for (int i = 0; i < count; i++) {
+            xs[i] = getPointX(i);
+            ys[i] = getPointY(i);
+        }
+        return count;
+    }
+
+    /**
+     * Passes coordinates of every point in ascending X order without allocating point objects.
+     */
+    default void forEachPoint(DoubleBinaryConsumer action) {
+        int count = getPointsCount();
+        for (int i = 0; i < count; i++) {
+            action.accept(getPointX(i), getPointY(i));
+        }
+    }
+
+    /**
+     * Splittable spliterator over a snapshot of the points, suitable for parallel streams;
+     * later modifications of the function are not reflected.
+     */
+    default Spliterator<FunctionPoint> spliterator() {
+        PointColumns columns = PointColumns.of(this);
+        return new PointSpliterator(columns.xs, columns.ys, 0, columns.count());
+    }
+
+    /**
+     * 64-bit content fingerprint: equal tables have equal fingerprints in every implementation,
+     * and {@code hashCode()} is derived from it. Implementations cache it between modifications.
+     */
+    default long fingerprint() {
+        long[] sum = {0L};
+        int[] index = {0};
+        forEachPoint((x, y) -> sum[0] += Fingerprints.term(index[0]++, x, y));
+        return Fingerprints.finish(sum[0], index[0]);
+    }
+
+    default DoubleStream xStream() {
+        double[] xs = new double[getPointsCount()];
+        copyXs(xs);
+        return Arrays.stream(xs);
+    }
+
+    default DoubleStream yStream() {
+        double[] ys = new double[getPointsCount()];
+        copyYs(ys);
+        return Arrays.stream(ys);
+    }
 }
@@ -0,0 +1,33 @@
+package functions;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for the binary and text input and output methods of {@link TabulatedFunctions}.
+ */
+@Name("functions.TabulatedFunctionIO")
+@Label("Tabulated Function I/O")
+@Category({"Functions"})
+@Threshold("1 ms")
+final class TabulatedFunctionIOEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Points")
+    int points;
+
+    @Label("Bytes")
+    @Description("Bytes of the binary format, 0 for the text format")
+    @DataAmount
+    long bytes;
+
+    @Label("Characters")
+    @Description("Characters of the text format, 0 for the binary format")
+    long chars;
+}
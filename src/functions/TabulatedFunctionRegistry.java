@@ -0,0 +1,81 @@
+package functions;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns tabulated functions: tables with equal content are mapped to one shared {@link ImmutableTabulatedFunction},
+ * so identical copies occupy memory once and compare by reference.
+ * Entries are held weakly and disappear once no caller references the shared instance. Thread-safe.
+ */
+public class TabulatedFunctionRegistry {
+    private static final class Entry extends WeakReference<ImmutableTabulatedFunction> {
+        final long fingerprint;
+
+        Entry(ImmutableTabulatedFunction function, ReferenceQueue<ImmutableTabulatedFunction> queue) {
+            super(function, queue);
+            this.fingerprint = function.fingerprint();
+        }
+    }
+
+    private final Map<Long, List<Entry>> entries = new HashMap<>();
+    private final ReferenceQueue<ImmutableTabulatedFunction> queue = new ReferenceQueue<>();
+    private int size;
+
+    /**
+     * Returns the shared immutable instance with the same points as {@code function}, registering a copy if there is none.
+     */
+    public synchronized ImmutableTabulatedFunction intern(TabulatedFunction function) {
+        if (function == null) {
+            throw new IllegalArgumentException("Function must not be null");
+        }
+        expungeStale();
+        long fingerprint = function.fingerprint();
+        List<Entry> bucket = entries.computeIfAbsent(fingerprint, key -> new ArrayList<>(1));
+        for (Entry entry : bucket) {
+            ImmutableTabulatedFunction existing = entry.get();
+            if (existing != null && (existing == function || existing.contentEquals(function))) {
+                return existing;
+            }
+        }
+        ImmutableTabulatedFunction shared = function instanceof ImmutableTabulatedFunction immutable
+                ? immutable
+                : new ImmutableTabulatedFunction(function);
+        bucket.add(new Entry(shared, queue));
+        size++;
+        return shared;
+    }
+
+    /**
+     * Number of distinct live tables.
+     */
+    public synchronized int size() {
+        expungeStale();
+        return size;
+    }
+
+    public synchronized void clear() {
+        while (queue.poll() != null) {
+            // Drained so that expungeStale() does not touch entries of the cleared map.
+        }
+        entries.clear();
+        size = 0;
+    }
+
+    private void expungeStale() {
+        for (Object reference; (reference = queue.poll()) != null; ) {
+            Entry stale = (Entry) reference;
+            List<Entry> bucket = entries.get(stale.fingerprint);
+            if (bucket != null && bucket.remove(stale)) {
+                size--;
+                if (bucket.isEmpty()) {
+                    entries.remove(stale.fingerprint);
+                }
+            }
+        }
+    }
+}
@@ -6,6 +6,7 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.FilterReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -34,6 +35,8 @@ public final class TabulatedFunctions {
             throw new IllegalArgumentException("Segment is outside function domain");
         }
 
+        TabulateEvent event = new TabulateEvent();
+        event.begin();
         FunctionPoint[] points = new FunctionPoint[pointsCount];
         double step = (rightX - leftX) / (pointsCount - 1);
         for (int i = 0; i < pointsCount; i++) {
@@ -44,21 +47,187 @@ public final class TabulatedFunctions {
             }
             points[i] = new FunctionPoint(x, y);
         }
+        ArrayTabulatedFunction result = new ArrayTabulatedFunction(points);
+        event.end();
+        if (event.shouldCommit()) {
+            event.function = function.getClass().getSimpleName();
+            event.leftX = leftX;
+            event.rightX = rightX;
+            event.points = pointsCount;
+            event.commit();
+        }
+        return result;
+    }
+
+    /**
+     * Removes points that linear interpolation can restore with vertical error not exceeding {@code maxError}
+     * (Ramer–Douglas–Peucker by vertical distance). Expected O(n log n), first and last points are always kept.
+     *
+     * @param function source function, left unchanged
+     * @param maxError maximal allowed deviation of the result from every source point (non-negative)
+     * @return new compact tabulated function
+     */
+    public static ArrayTabulatedFunction simplify(TabulatedFunction function, double maxError) {
+        if (function == null) {
+            throw new IllegalArgumentException("Function must not be null");
+        }
+        if (!(maxError >= 0.0)) {
+            throw new IllegalArgumentException("maxError must be non-negative");
+        }
+        PointColumns columns = PointColumns.of(function);
+        int count = columns.count();
+        double[] xs = columns.xs;
+        double[] ys = columns.ys;
+
+        boolean[] keep = new boolean[count];
+        keep[0] = true;
+        keep[count - 1] = true;
+        int kept = 2;
+        int[] stack = new int[2 * count];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = count - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            double slope = (ys[last] - ys[first]) / (xs[last] - xs[first]);
+            int farthest = -1;
+            double farthestError = maxError;
+            for (int i = first + 1; i < last; i++) {
+                double error = Math.abs(ys[first] + slope * (xs[i] - xs[first]) - ys[i]);
+                if (error > farthestError) {
+                    farthestError = error;
+                    farthest = i;
+                }
+            }
+            if (farthest >= 0) {
+                keep[farthest] = true;
+                kept++;
+                stack[top++] = first;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = last;
+            }
+        }
+
+        FunctionPoint[] points = new FunctionPoint[kept];
+        int j = 0;
+        for (int i = 0; i < count; i++) {
+            if (keep[i]) {
+                points[j++] = new FunctionPoint(xs[i], ys[i]);
+            }
+        }
+        return new ArrayTabulatedFunction(points);
+    }
+
+    /**
+     * Reduces the function to {@code targetCount} points preserving its visual shape
+     * (Largest-Triangle-Three-Buckets). Meant for plotting, no error bound is guaranteed. O(n).
+     *
+     * @param function    source function, left unchanged
+     * @param targetCount number of points in the result (at least 3)
+     * @return new tabulated function, or a plain copy if the source already has no more points
+     */
+    public static ArrayTabulatedFunction downsample(TabulatedFunction function, int targetCount) {
+        if (function == null) {
+            throw new IllegalArgumentException("Function must not be null");
+        }
+        if (targetCount < 3) {
+            throw new IllegalArgumentException("At least three points are required");
+        }
+        PointColumns columns = PointColumns.of(function);
+        int count = columns.count();
+        double[] xs = columns.xs;
+        double[] ys = columns.ys;
+        if (count <= targetCount) {
+            FunctionPoint[] points = new FunctionPoint[count];
+            for (int i = 0; i < count; i++) {
+                points[i] = new FunctionPoint(xs[i], ys[i]);
+            }
+            return new ArrayTabulatedFunction(points);
+        }
+
+        FunctionPoint[] points = new FunctionPoint[targetCount];
+        points[0] = new FunctionPoint(xs[0], ys[0]);
+        double bucketSize = (double) (count - 2) / (targetCount - 2);
+        int selected = 0;
+        for (int bucket = 0; bucket < targetCount - 2; bucket++) {
+            int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, count);
+            double avgX = 0.0;
+            double avgY = 0.0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += xs[i];
+                avgY += ys[i];
+            }
+            int nextLength = nextEnd - nextStart;
+            avgX /= nextLength;
+            avgY /= nextLength;
+
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = nextStart;
+            double maxArea = -1.0;
+            int candidate = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((xs[selected] - avgX) * (ys[i] - ys[selected])
+                        - (xs[selected] - xs[i]) * (avgY - ys[selected]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    candidate = i;
+                }
+            }
+            points[bucket + 1] = new FunctionPoint(xs[candidate], ys[candidate]);
+            selected = candidate;
+        }
+        points[targetCount - 1] = new FunctionPoint(xs[count - 1], ys[count - 1]);
         return new ArrayTabulatedFunction(points);
     }
 
     public static void outputTabulatedFunction(TabulatedFunction function, OutputStream out) throws IOException {
+        TabulatedFunctionIOEvent event = new TabulatedFunctionIOEvent();
+        event.begin();
         DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(out));
-        dataOut.writeInt(function.getPointsCount());
-        for (int i = 0; i < function.getPointsCount(); i++) {
-            FunctionPoint point = function.getPoint(i);
-            dataOut.writeDouble(point.getX());
-            dataOut.writeDouble(point.getY());
+        TabulatedFunction stable = stable(function);
+        int count = stable.getPointsCount();
+        dataOut.writeInt(count);
+        IOException[] failure = {null};
+        stable.forEachPoint((x, y) -> {
+            if (failure[0] == null) {
+                try {
+                    dataOut.writeDouble(x);
+                    dataOut.writeDouble(y);
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
         }
         dataOut.flush();
+        commit(event, "outputBinary", count, dataOut.size(), 0L);
+    }
+
+    // The count and the points must come from one state; a concurrent table is pinned by its O(1) clone.
+    private static TabulatedFunction stable(TabulatedFunction function) {
+        return function instanceof ConcurrentTabulatedFunction concurrent ? concurrent.clone() : function;
+    }
+
+    private static void commit(TabulatedFunctionIOEvent event, String operation, int points, long bytes,
+                               long chars) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.points = points;
+            event.bytes = bytes;
+            event.chars = chars;
+            event.commit();
+        }
     }
 
     public static TabulatedFunction inputTabulatedFunction(InputStream in) throws IOException {
+        TabulatedFunctionIOEvent event = new TabulatedFunctionIOEvent();
+        event.begin();
         DataInputStream dataIn = new DataInputStream(new BufferedInputStream(in));
         int pointsCount = dataIn.readInt();
         FunctionPoint[] points = new FunctionPoint[pointsCount];
@@ -67,27 +236,38 @@ public final class TabulatedFunctions {
             double y = dataIn.readDouble();
             points[i] = new FunctionPoint(x, y);
         }
-        return new ArrayTabulatedFunction(points);
+        ArrayTabulatedFunction result = new ArrayTabulatedFunction(points);
+        commit(event, "inputBinary", pointsCount, 4L + 16L * pointsCount, 0L);
+        return result;
     }
 
     public static void writeTabulatedFunction(TabulatedFunction function, Writer out) throws IOException {
+        TabulatedFunctionIOEvent event = new TabulatedFunctionIOEvent();
+        event.begin();
         BufferedWriter writer = new BufferedWriter(out);
+        TabulatedFunction stable = stable(function);
+        int count = stable.getPointsCount();
         StringBuilder builder = new StringBuilder();
-        builder.append(function.getPointsCount());
-        for (int i = 0; i < function.getPointsCount(); i++) {
-            FunctionPoint point = function.getPoint(i);
-            builder.append(' ')
-                   .append(point.getX())
-                   .append(' ')
-                   .append(point.getY());
-        }
+        builder.append(count);
+        stable.forEachPoint((x, y) -> builder.append(' ')
+                                               .append(x)
+                                               .append(' ')
+                                               .append(y));
         writer.write(builder.toString());
         writer.newLine();
         writer.flush();
+        commit(event, "writeText", count, 0L, builder.length() + System.lineSeparator().length());
     }
 
     public static TabulatedFunction readTabulatedFunction(Reader in) throws IOException {
-        StreamTokenizer tokenizer = new StreamTokenizer(new BufferedReader(in));
+        TabulatedFunctionIOEvent event = new TabulatedFunctionIOEvent();
+        event.begin();
+        CountingReader counter = event.isEnabled() ? new CountingReader(in) : null;
+        StreamTokenizer tokenizer = new StreamTokenizer(new BufferedReader(counter != null ? counter : in));
+        // Built-in number parsing of StreamTokenizer does not understand exponents written by Double.toString.
+        tokenizer.resetSyntax();
+        tokenizer.wordChars('!', '~');
+        tokenizer.whitespaceChars(0, ' ');
         int pointsCount = (int) nextNumber(tokenizer);
         FunctionPoint[] points = new FunctionPoint[pointsCount];
         for (int i = 0; i < pointsCount; i++) {
@@ -95,14 +275,47 @@ public final class TabulatedFunctions {
             double y = nextNumber(tokenizer);
             points[i] = new FunctionPoint(x, y);
         }
-        return new ArrayTabulatedFunction(points);
+        ArrayTabulatedFunction result = new ArrayTabulatedFunction(points);
+        // Counts what the buffer consumed from the source, which may run past the last number.
+        commit(event, "readText", pointsCount, 0L, counter != null ? counter.count : 0L);
+        return result;
+    }
+
+    private static final class CountingReader extends FilterReader {
+        long count;
+
+        CountingReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c >= 0) {
+                count++;
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
     }
 
     private static double nextNumber(StreamTokenizer tokenizer) throws IOException {
         int token = tokenizer.nextToken();
-        if (token != StreamTokenizer.TT_NUMBER) {
+        if (token != StreamTokenizer.TT_WORD) {
             throw new IOException("Expected number token");
         }
-        return tokenizer.nval;
+        try {
+            return Double.parseDouble(tokenizer.sval);
+        } catch (NumberFormatException e) {
+            throw new IOException("Expected number token, got " + tokenizer.sval, e);
+        }
     }
 }
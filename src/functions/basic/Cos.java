@@ -1,8 +1,15 @@
 package functions.basic;
 
 public class Cos extends TrigonometricFunction {
+    public Cos() {
+    }
+
+    public Cos(Precision precision) {
+        super(precision);
+    }
+
     @Override
     public double getFunctionValue(double x) {
-        return Math.cos(x);
+        return fast ? FastMath.cos(x) : Math.cos(x);
     }
 }
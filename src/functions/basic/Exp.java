@@ -2,7 +2,26 @@ package functions.basic;
 
 import functions.Function;
 
+import java.util.Objects;
+
 public class Exp implements Function {
+    private final boolean fast;
+
+    public Exp() {
+        this(Precision.getDefault());
+    }
+
+    public Exp(Precision precision) {
+        if (precision == null) {
+            throw new IllegalArgumentException("Precision must not be null");
+        }
+        this.fast = precision == Precision.FAST;
+    }
+
+    public Precision getPrecision() {
+        return fast ? Precision.FAST : Precision.STRICT;
+    }
+
     @Override
     public double getLeftDomainBorder() {
         return Double.NEGATIVE_INFINITY;
@@ -15,6 +34,16 @@ public class Exp implements Function {
 
     @Override
     public double getFunctionValue(double x) {
-        return Math.exp(x);
+        return fast ? FastMath.exp(x) : Math.exp(x);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Exp other && other.getClass() == getClass() && fast == other.fast;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getClass().getName(), fast);
     }
 }
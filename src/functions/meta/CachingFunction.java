@@ -0,0 +1,151 @@
+package functions.meta;
+
+import functions.Function;
+import java.util.Objects;
+
+/**
+ * Memoizes values of the wrapped function in a bounded cache keyed by the exact argument.
+ * The thread-safe variant splits the cache into independently locked stripes,
+ * the thread-confined variant uses a single unsynchronized cache.
+ */
+public class CachingFunction implements Function {
+    private final Function function;
+    private final DoubleCache[] stripes;
+    private final int stripeMask;
+    private final boolean threadSafe;
+    private final int capacity;
+
+    public CachingFunction(Function function, int capacity, boolean threadSafe) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.function = Objects.requireNonNull(function, "function");
+        this.threadSafe = threadSafe;
+        this.capacity = capacity;
+        int stripesCount = threadSafe ? stripesFor(capacity) : 1;
+        int stripeCapacity = (capacity + stripesCount - 1) / stripesCount;
+        stripes = new DoubleCache[stripesCount];
+        for (int i = 0; i < stripesCount; i++) {
+            stripes[i] = new DoubleCache(stripeCapacity);
+        }
+        stripeMask = stripesCount - 1;
+    }
+
+    private static int stripesFor(int capacity) {
+        int wanted = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+        int limit = Math.max(1, Integer.highestOneBit(Math.max(capacity / 16, 1)));
+        return Math.min(wanted, limit);
+    }
+
+    public Function getFunction() {
+        return function;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public boolean isThreadSafe() {
+        return threadSafe;
+    }
+
+    @Override
+    public double getLeftDomainBorder() {
+        return function.getLeftDomainBorder();
+    }
+
+    @Override
+    public double getRightDomainBorder() {
+        return function.getRightDomainBorder();
+    }
+
+    @Override
+    public double getFunctionValue(double x) {
+        long key = Double.doubleToRawLongBits(x);
+        if (!threadSafe) {
+            DoubleCache cache = stripes[0];
+            int slot = cache.find(key);
+            if (slot >= 0) {
+                cache.hits++;
+                return cache.valueAt(slot);
+            }
+            cache.misses++;
+            double value = function.getFunctionValue(x);
+            cache.put(key, value);
+            return value;
+        }
+
+        DoubleCache cache = stripes[(DoubleCache.hash(key) >>> 24) & stripeMask];
+        synchronized (cache) {
+            int slot = cache.find(key);
+            if (slot >= 0) {
+                cache.hits++;
+                return cache.valueAt(slot);
+            }
+            cache.misses++;
+        }
+        // The wrapped function is evaluated outside the lock so slow trees do not serialize the stripe.
+        double value = function.getFunctionValue(x);
+        synchronized (cache) {
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    public long getHits() {
+        long total = 0;
+        for (DoubleCache cache : stripes) {
+            if (threadSafe) {
+                synchronized (cache) {
+                    total += cache.hits;
+                }
+            } else {
+                total += cache.hits;
+            }
+        }
+        return total;
+    }
+
+    public long getMisses() {
+        long total = 0;
+        for (DoubleCache cache : stripes) {
+            if (threadSafe) {
+                synchronized (cache) {
+                    total += cache.misses;
+                }
+            } else {
+                total += cache.misses;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Drops all cached values and resets hit/miss counters.
+     */
+    public void clear() {
+        for (DoubleCache cache : stripes) {
+            if (threadSafe) {
+                synchronized (cache) {
+                    cache.clear();
+                }
+            } else {
+                cache.clear();
+            }
+        }
+    }
+
+    /**
+     * Equal when the wrapped functions and the cache settings are equal; cached content does not matter.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof CachingFunction other && other.getClass() == getClass()
+                && capacity == other.capacity && threadSafe == other.threadSafe && function.equals(other.function);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getClass().getName(), function, capacity, threadSafe);
+    }
+}
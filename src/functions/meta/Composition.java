@@ -14,6 +14,14 @@ public class Composition implements Function {
         this.inner = Objects.requireNonNull(inner, "inner");
     }
 
+    public Function getOuter() {
+        return outer;
+    }
+
+    public Function getInner() {
+        return inner;
+    }
+
     @Override
     public double getLeftDomainBorder() {
         return inner.getLeftDomainBorder();
@@ -38,4 +46,15 @@ public class Composition implements Function {
         }
         return outer.getFunctionValue(innerValue);
     }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Composition other && other.getClass() == getClass()
+                && outer.equals(other.outer) && inner.equals(other.inner);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getClass().getName(), outer, inner);
+    }
 }
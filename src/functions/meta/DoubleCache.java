@@ -0,0 +1,127 @@
+package functions.meta;
+
+import java.util.Arrays;
+
+/**
+ * Bounded map from double arguments to double values with CLOCK eviction.
+ * Keys are kept as raw bits in primitive arrays and indexed by a linear-probing table, so lookups do not allocate.
+ * Not thread-safe, callers synchronize externally when needed.
+ */
+final class DoubleCache {
+    private final long[] keys;
+    private final double[] values;
+    private final boolean[] referenced;
+    private final int[] table;
+    private final int tableMask;
+    private int size;
+    private int hand;
+
+    long hits;
+    long misses;
+
+    DoubleCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        keys = new long[capacity];
+        values = new double[capacity];
+        referenced = new boolean[capacity];
+        int tableSize = Integer.highestOneBit(Math.max(capacity * 2 - 1, 1)) << 1;
+        table = new int[tableSize];
+        tableMask = tableSize - 1;
+    }
+
+    static int hash(long bits) {
+        bits ^= bits >>> 33;
+        bits *= 0xff51afd7ed558ccdL;
+        bits ^= bits >>> 33;
+        bits *= 0xc4ceb9fe1a85ec53L;
+        bits ^= bits >>> 33;
+        return (int) bits;
+    }
+
+    /**
+     * @return slot of the key or -1 when absent; a found slot is marked as recently used
+     */
+    int find(long key) {
+        int position = hash(key) & tableMask;
+        while (true) {
+            int entry = table[position];
+            if (entry == 0) {
+                return -1;
+            }
+            int slot = entry - 1;
+            if (keys[slot] == key) {
+                referenced[slot] = true;
+                return slot;
+            }
+            position = (position + 1) & tableMask;
+        }
+    }
+
+    double valueAt(int slot) {
+        return values[slot];
+    }
+
+    void put(long key, double value) {
+        int existing = find(key);
+        if (existing >= 0) {
+            values[existing] = value;
+            return;
+        }
+        int slot;
+        if (size < keys.length) {
+            slot = size++;
+        } else {
+            while (referenced[hand]) {
+                referenced[hand] = false;
+                hand = hand + 1 == keys.length ? 0 : hand + 1;
+            }
+            slot = hand;
+            hand = hand + 1 == keys.length ? 0 : hand + 1;
+            removeFromTable(slot);
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        referenced[slot] = false;
+        int position = hash(key) & tableMask;
+        while (table[position] != 0) {
+            position = (position + 1) & tableMask;
+        }
+        table[position] = slot + 1;
+    }
+
+    void clear() {
+        Arrays.fill(table, 0);
+        Arrays.fill(referenced, false);
+        size = 0;
+        hand = 0;
+        hits = 0;
+        misses = 0;
+    }
+
+    private void removeFromTable(int slot) {
+        int hole = hash(keys[slot]) & tableMask;
+        while (table[hole] != slot + 1) {
+            hole = (hole + 1) & tableMask;
+        }
+        // Backward-shift deletion keeps probe chains intact without tombstones.
+        int current = hole;
+        while (true) {
+            current = (current + 1) & tableMask;
+            int entry = table[current];
+            if (entry == 0) {
+                break;
+            }
+            int home = hash(keys[entry - 1]) & tableMask;
+            boolean staysInPlace = hole <= current
+                    ? hole < home && home <= current
+                    : hole < home || home <= current;
+            if (!staysInPlace) {
+                table[hole] = entry;
+                hole = current;
+            }
+        }
+        table[hole] = 0;
+    }
+}
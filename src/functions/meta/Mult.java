@@ -21,6 +21,14 @@ public class Mult implements Function {
         }
     }
 
+    public Function getFirst() {
+        return first;
+    }
+
+    public Function getSecond() {
+        return second;
+    }
+
     @Override
     public double getLeftDomainBorder() {
         return leftBorder;
@@ -38,4 +46,15 @@ public class Mult implements Function {
         }
         return first.getFunctionValue(x) * second.getFunctionValue(x);
     }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Mult other && other.getClass() == getClass()
+                && first.equals(other.first) && second.equals(other.second);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getClass().getName(), first, second);
+    }
 }
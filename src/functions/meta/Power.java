@@ -12,6 +12,14 @@ public class Power implements Function {
         this.power = power;
     }
 
+    public Function getBaseFunction() {
+        return baseFunction;
+    }
+
+    public double getPower() {
+        return power;
+    }
+
     @Override
     public double getLeftDomainBorder() {
         return baseFunction.getLeftDomainBorder();
@@ -30,4 +38,15 @@ public class Power implements Function {
         }
         return Math.pow(baseValue, power);
     }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Power other && other.getClass() == getClass()
+                && Double.compare(power, other.power) == 0 && baseFunction.equals(other.baseFunction);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getClass().getName(), baseFunction, power);
+    }
 }
@@ -25,6 +25,18 @@ public class Scale implements Function {
         rightBorder = Math.max(scaledLeft, scaledRight);
     }
 
+    public Function getFunction() {
+        return function;
+    }
+
+    public double getScaleX() {
+        return scaleX;
+    }
+
+    public double getScaleY() {
+        return scaleY;
+    }
+
     @Override
     public double getLeftDomainBorder() {
         return leftBorder;
@@ -47,4 +59,16 @@ public class Scale implements Function {
         }
         return scaleY * value;
     }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Scale other && other.getClass() == getClass()
+                && Double.compare(scaleX, other.scaleX) == 0 && Double.compare(scaleY, other.scaleY) == 0
+                && function.equals(other.function);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getClass().getName(), function, scaleX, scaleY);
+    }
 }
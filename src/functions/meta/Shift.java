@@ -16,6 +16,18 @@ public class Shift implements Function {
         this.shiftY = shiftY;
     }
 
+    public Function getFunction() {
+        return function;
+    }
+
+    public double getShiftX() {
+        return shiftX;
+    }
+
+    public double getShiftY() {
+        return shiftY;
+    }
+
     @Override
     public double getLeftDomainBorder() {
         return function.getLeftDomainBorder() + shiftX;
@@ -37,4 +49,16 @@ public class Shift implements Function {
         }
         return originalValue + shiftY;
     }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Shift other && other.getClass() == getClass()
+                && Double.compare(shiftX, other.shiftX) == 0 && Double.compare(shiftY, other.shiftY) == 0
+                && function.equals(other.function);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getClass().getName(), function, shiftX, shiftY);
+    }
 }
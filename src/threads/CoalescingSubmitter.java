@@ -0,0 +1,140 @@
+package threads;
+
+import functions.Function;
+
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-flight front for an integration target: identical tasks submitted while an earlier one is still
+ * in flight share its computation instead of starting their own.
+ * <p>
+ * Tasks are identical when their functions are equal and their borders and steps are the same; versions are
+ * ignored. Every caller gets its own future, so cancelling it only detaches that caller; the shared computation
+ * is cancelled once all of its waiters have cancelled. Completed results are not kept, see
+ * {@link functions.IntegrationResultCache} for that.
+ */
+public class CoalescingSubmitter implements LoadGenerator.Target {
+    private record Key(Function function, double leftBorder, double rightBorder, double step) {
+    }
+
+    private static final class Flight {
+        final CompletableFuture<Double> result = new CompletableFuture<>();
+        // Guarded by the map entry of the flight's key.
+        int waiters;
+        volatile boolean abandoned;
+        volatile CompletableFuture<Double> upstream;
+    }
+
+    private final LoadGenerator.Target delegate;
+    private final ConcurrentMap<Key, Flight> flights = new ConcurrentHashMap<>();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public CoalescingSubmitter(LoadGenerator.Target delegate) {
+        this.delegate = Objects.requireNonNull(delegate);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the task or its function is null
+     */
+    @Override
+    public CompletableFuture<Double> submit(Task.TaskData data) {
+        if (data == null || data.function() == null) {
+            throw new IllegalArgumentException("Task data and its function must not be null");
+        }
+        submitted.incrementAndGet();
+        Key key = new Key(data.function(), data.leftBorder(), data.rightBorder(), data.step());
+        Flight[] created = new Flight[1];
+        Flight flight = flights.compute(key, (k, current) -> {
+            Flight joined = current;
+            if (joined == null || joined.abandoned) {
+                joined = new Flight();
+                created[0] = joined;
+            }
+            joined.waiters++;
+            return joined;
+        });
+        if (created[0] != null) {
+            start(key, flight, data);
+        } else {
+            coalesced.incrementAndGet();
+        }
+
+        CompletableFuture<Double> waiter = new CompletableFuture<>();
+        flight.result.whenComplete((value, failure) -> {
+            if (failure == null) {
+                waiter.complete(value);
+            } else {
+                waiter.completeExceptionally(failure);
+            }
+        });
+        waiter.whenComplete((value, failure) -> {
+            if (failure instanceof CancellationException) {
+                leave(key, flight);
+            }
+        });
+        return waiter;
+    }
+
+    private void start(Key key, Flight flight, Task.TaskData data) {
+        CompletableFuture<Double> upstream;
+        try {
+            upstream = delegate.submit(data);
+        } catch (RuntimeException e) {
+            flights.remove(key, flight);
+            flight.result.completeExceptionally(e);
+            return;
+        }
+        flight.upstream = upstream;
+        upstream.whenComplete((value, failure) -> {
+            // Retire the flight first, so submissions seeing the result never join a finished computation.
+            flights.remove(key, flight);
+            if (failure == null) {
+                flight.result.complete(value);
+            } else {
+                flight.result.completeExceptionally(failure);
+            }
+        });
+        // All waiters may have left before the upstream future was published.
+        if (flight.abandoned) {
+            upstream.cancel(true);
+        }
+    }
+
+    private void leave(Key key, Flight flight) {
+        flights.computeIfPresent(key, (k, current) -> {
+            if (current != flight || --current.waiters > 0) {
+                return current;
+            }
+            current.abandoned = true;
+            return null;
+        });
+        if (flight.abandoned) {
+            CompletableFuture<Double> upstream = flight.upstream;
+            if (upstream != null) {
+                upstream.cancel(true);
+            }
+            flight.result.cancel(true);
+        }
+    }
+
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    /**
+     * Number of submissions that joined a computation already in flight.
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    public int getInFlightCount() {
+        return flights.size();
+    }
+}
@@ -1,18 +1,27 @@
 package threads;
 
-import functions.Function;
-import functions.basic.Log;
-
+import java.util.Objects;
 import java.util.Random;
 
 public class Generator extends Thread {
     private final Task task;
     private final OnePlaceSemaphore semaphore;
-    private final Random random = new Random();
+    private final Random random;
+    private final Workload workload;
 
     public Generator(Task task, OnePlaceSemaphore semaphore) {
+        this(task, semaphore, new Random(), Workload.logarithms());
+    }
+
+    /**
+     * @param random   source of randomness for the workload, pass a seeded one for a reproducible stream
+     * @param workload distribution of the generated tasks
+     */
+    public Generator(Task task, OnePlaceSemaphore semaphore, Random random, Workload workload) {
         this.task = task;
         this.semaphore = semaphore;
+        this.random = Objects.requireNonNull(random);
+        this.workload = Objects.requireNonNull(workload);
     }
 
     @Override
@@ -21,11 +30,7 @@ public class Generator extends Thread {
             if (Thread.currentThread().isInterrupted()) {
                 return;
             }
-            double base = 1.0 + random.nextDouble() * 9.0;
-            Function function = new Log(base);
-            double left = Math.max(1e-3, random.nextDouble() * 100.0); // clamp to stay inside log domain
-            double right = 100.0 + random.nextDouble() * 100.0;
-            double step = Math.max(1e-3, random.nextDouble()); // avoid zero step
+            Task.TaskData data = workload.next(random);
 
             try {
                 semaphore.beginWrite();
@@ -33,9 +38,9 @@ public class Generator extends Thread {
                 Thread.currentThread().interrupt();
                 return;
             }
-            task.update(function, left, right, step);
+            task.update(data.function(), data.leftBorder(), data.rightBorder(), data.step());
             semaphore.endWrite();
-            System.out.printf("Source %.4f %.4f %.6f%n", left, right, step);
+            System.out.printf("Source %.4f %.4f %.6f%n", data.leftBorder(), data.rightBorder(), data.step());
 
             try {
                 Thread.sleep(1);
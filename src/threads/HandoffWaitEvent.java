@@ -0,0 +1,20 @@
+package threads;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for a thread blocked in {@link Task} or {@link OnePlaceSemaphore}.
+ * Only created when the thread actually has to wait.
+ */
+@Name("threads.HandoffWait")
+@Label("Handoff Wait")
+@Category({"Threads"})
+@Threshold("10 ms")
+final class HandoffWaitEvent extends Event {
+    @Label("Operation")
+    String operation;
+}
@@ -0,0 +1,348 @@
+package threads;
+
+import functions.FunctionDescriptors;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Distributes integration tasks to {@link IntegrationWorker} processes connected over loopback TCP
+ * or a Unix domain socket.
+ * <p>
+ * Each task is encoded once with {@link FunctionDescriptors} and sent to the connected worker with the lowest load,
+ * i.e. the fewest tasks in flight per slot; a worker never gets more tasks than it has slots, the rest wait here.
+ * When a worker disconnects, its unfinished tasks are sent to other workers, up to {@value #MAX_ATTEMPTS} attempts
+ * per task. Errors reported by a worker, such as an integral outside the domain, fail the task immediately.
+ */
+public class IntegrationCoordinator implements Closeable {
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final class Job {
+        final long id;
+        final byte[] request;
+        final CompletableFuture<Double> result = new CompletableFuture<>();
+        int attempts;
+
+        Job(long id, byte[] request) {
+            this.id = id;
+            this.request = request;
+        }
+    }
+
+    private static final class Connection {
+        final SocketChannel channel;
+        final Map<Long, Job> inFlight = new HashMap<>();
+        int slots;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private final ServerSocketChannel server;
+    private final SocketAddress address;
+    private final Thread acceptor;
+    private final AtomicLong ids = new AtomicLong();
+    private final List<Connection> workers = new ArrayList<>();
+    private final ArrayDeque<Job> pending = new ArrayDeque<>();
+    private final List<Process> processes = new ArrayList<>();
+    private boolean closed;
+
+    /**
+     * Listens on an ephemeral port of the loopback interface.
+     */
+    public IntegrationCoordinator() throws IOException {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    /**
+     * Listens on the given TCP address or, for a {@link UnixDomainSocketAddress}, on a socket file that must not exist.
+     */
+    public IntegrationCoordinator(SocketAddress address) throws IOException {
+        server = address instanceof UnixDomainSocketAddress
+                ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+                : ServerSocketChannel.open();
+        server.bind(address);
+        this.address = server.getLocalAddress();
+        acceptor = new Thread(this::acceptLoop, "integration-coordinator-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public SocketAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * Starts a worker JVM with the classpath of this one, connected to this coordinator.
+     * The process is destroyed by {@link #close()}.
+     */
+    public Process spawnLocalWorker(int slots) throws IOException {
+        if (slots < 1) {
+            throw new IllegalArgumentException("slots must be positive");
+        }
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                IntegrationWorker.class.getName(), IntegrationProtocol.formatAddress(address), String.valueOf(slots));
+        builder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        Process process = builder.start();
+        synchronized (this) {
+            if (closed) {
+                process.destroy();
+                throw new IOException("Coordinator is closed");
+            }
+            processes.add(process);
+        }
+        return process;
+    }
+
+    public synchronized int getWorkersCount() {
+        return workers.size();
+    }
+
+    public synchronized void awaitWorkers(int count, long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (workers.size() < count) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                throw new TimeoutException(workers.size() + " of " + count + " workers connected");
+            }
+            wait(remaining);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the function of the task has no descriptor
+     */
+    public CompletableFuture<Double> submit(Task.TaskData data) {
+        if (data == null || data.function() == null) {
+            throw new IllegalArgumentException("Task data and its function must not be null");
+        }
+        long id = ids.incrementAndGet();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeLong(id);
+            out.writeDouble(data.leftBorder());
+            out.writeDouble(data.rightBorder());
+            out.writeDouble(data.step());
+            FunctionDescriptors.write(data.function(), out);
+        } catch (IOException e) {
+            throw new AssertionError("In-memory stream cannot fail", e);
+        }
+        Job job = new Job(id, bytes.toByteArray());
+        synchronized (this) {
+            if (closed) {
+                job.result.completeExceptionally(new IOException("Coordinator is closed"));
+                return job.result;
+            }
+            pending.addLast(job);
+        }
+        dispatch();
+        return job.result;
+    }
+
+    /**
+     * Submits all tasks and completes with their results in submission order,
+     * or exceptionally with the first failure.
+     */
+    public CompletableFuture<double[]> submitAll(List<Task.TaskData> tasks) {
+        List<CompletableFuture<Double>> futures = new ArrayList<>(tasks.size());
+        for (Task.TaskData data : tasks) {
+            futures.add(submit(data));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            double[] results = new double[futures.size()];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = futures.get(i).join();
+            }
+            return results;
+        });
+    }
+
+    private void acceptLoop() {
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = server.accept();
+            } catch (IOException e) {
+                return;
+            }
+            Thread reader = new Thread(() -> readLoop(new Connection(channel)), "integration-coordinator-reader");
+            reader.setDaemon(true);
+            reader.start();
+        }
+    }
+
+    private void readLoop(Connection connection) {
+        try {
+            byte[] hello = IntegrationProtocol.readFrame(connection.channel);
+            if (hello == null) {
+                throw new IOException("Worker disconnected before hello");
+            }
+            DataInputStream helloIn = new DataInputStream(new ByteArrayInputStream(hello));
+            if (helloIn.readInt() != IntegrationProtocol.MAGIC) {
+                throw new IOException("Not an integration worker");
+            }
+            int slots = helloIn.readInt();
+            if (slots < 1) {
+                throw new IOException("Invalid slots count: " + slots);
+            }
+            synchronized (this) {
+                if (closed) {
+                    throw new IOException("Coordinator is closed");
+                }
+                connection.slots = slots;
+                workers.add(connection);
+                notifyAll();
+            }
+            dispatch();
+            byte[] frame;
+            while ((frame = IntegrationProtocol.readFrame(connection.channel)) != null) {
+                complete(connection, new DataInputStream(new ByteArrayInputStream(frame)));
+            }
+        } catch (IOException ignored) {
+            // Handled below exactly like a clean disconnect.
+        }
+        workerLost(connection);
+    }
+
+    private void complete(Connection connection, DataInputStream in) throws IOException {
+        long id = in.readLong();
+        Job job;
+        synchronized (this) {
+            job = connection.inFlight.remove(id);
+        }
+        if (job != null) {
+            if (in.readByte() == IntegrationProtocol.OK) {
+                job.result.complete(in.readDouble());
+            } else {
+                job.result.completeExceptionally(new IllegalArgumentException(in.readUTF()));
+            }
+        }
+        dispatch();
+    }
+
+    private void workerLost(Connection connection) {
+        try {
+            connection.channel.close();
+        } catch (IOException ignored) {
+            // Nothing left to release.
+        }
+        synchronized (this) {
+            workers.remove(connection);
+            for (Job job : connection.inFlight.values()) {
+                if (closed || job.attempts >= MAX_ATTEMPTS) {
+                    job.result.completeExceptionally(new IOException(
+                            closed ? "Coordinator is closed" : "Task failed on " + job.attempts + " workers"));
+                } else {
+                    pending.addFirst(job);
+                }
+            }
+            connection.inFlight.clear();
+        }
+        dispatch();
+    }
+
+    /**
+     * Assigns pending tasks to the least loaded workers with free slots under the lock, then sends them outside it.
+     */
+    private void dispatch() {
+        List<Connection> targets = new ArrayList<>();
+        List<Job> jobs = new ArrayList<>();
+        synchronized (this) {
+            while (!pending.isEmpty()) {
+                Job job = pending.peekFirst();
+                if (job.result.isDone()) {
+                    pending.pollFirst();
+                    continue;
+                }
+                Connection best = null;
+                for (Connection worker : workers) {
+                    if (worker.inFlight.size() < worker.slots && (best == null
+                            || (long) worker.inFlight.size() * best.slots < (long) best.inFlight.size() * worker.slots)) {
+                        best = worker;
+                    }
+                }
+                if (best == null) {
+                    break;
+                }
+                pending.pollFirst();
+                job.attempts++;
+                best.inFlight.put(job.id, job);
+                targets.add(best);
+                jobs.add(job);
+            }
+        }
+        for (int i = 0; i < jobs.size(); i++) {
+            Connection target = targets.get(i);
+            try {
+                IntegrationProtocol.writeFrame(target.channel, jobs.get(i).request);
+            } catch (IOException e) {
+                // The reader thread of this worker notices the broken channel and re-dispatches its tasks.
+                try {
+                    target.channel.close();
+                } catch (IOException ignored) {
+                    // Already closed.
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops accepting workers, disconnects the connected ones, destroys spawned worker processes
+     * and fails every unfinished task.
+     */
+    @Override
+    public void close() throws IOException {
+        List<Connection> connected;
+        List<Process> spawned;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            connected = new ArrayList<>(workers);
+            spawned = new ArrayList<>(processes);
+            for (Job job : pending) {
+                job.result.completeExceptionally(new IOException("Coordinator is closed"));
+            }
+            pending.clear();
+            notifyAll();
+        }
+        server.close();
+        for (Connection connection : connected) {
+            connection.channel.close();
+        }
+        for (Process process : spawned) {
+            process.destroy();
+        }
+        Path socket = IntegrationProtocol.socketPath(address);
+        if (socket != null) {
+            Files.deleteIfExists(socket);
+        }
+    }
+}
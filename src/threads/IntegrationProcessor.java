@@ -0,0 +1,262 @@
+package threads;
+
+import functions.Function;
+import functions.Functions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Parallel integrating stage of a {@link java.util.concurrent.Flow} pipeline: consumes batches of tasks and
+ * publishes batches of results.
+ * <p>
+ * At most {@code prefetch} batches are requested from upstream and not yet processed, at most
+ * {@code concurrency} of them are integrated at once, and at most {@code prefetch} result batches are buffered
+ * per subscriber. A batch is requested only after an earlier one has been
+ * handed downstream, and handing over blocks while subscribers lag behind, so slow subscribers slow down
+ * the whole pipeline. Results of different batches may be published out of order; the task of every result
+ * is attached to it.
+ * <p>
+ * With family batching on, a batch is integrated by {@link Functions#integrateBatch}, so tasks that transform
+ * a shared core with the same step share its evaluations; results then agree with {@link Functions#integrate}
+ * within the trapezoidal error but not bit for bit. A batch in which some task fails is integrated task by task,
+ * so only that task gets a failed result.
+ */
+public class IntegrationProcessor
+        implements Flow.Processor<List<Task.TaskData>, List<IntegrationProcessor.Result>>, AutoCloseable {
+    /**
+     * @param failure the exception thrown by the integration, {@code null} on success
+     */
+    public record Result(Task.TaskData task, double value, RuntimeException failure) {
+        public boolean isSuccess() {
+            return failure == null;
+        }
+    }
+
+    private final int concurrency;
+    private final int prefetch;
+    private final boolean familyBatching;
+    private final ExecutorService workers;
+    private final SubmissionPublisher<List<Result>> output;
+
+    // Guarded by this.
+    private final Queue<List<Task.TaskData>> pending = new ArrayDeque<>();
+    private Flow.Subscription upstream;
+    private int running;
+    private boolean upstreamDone;
+    private Throwable upstreamFailure;
+    private boolean finished;
+
+    public IntegrationProcessor(int concurrency, int prefetch) {
+        this(concurrency, prefetch, false);
+    }
+
+    public IntegrationProcessor(int concurrency, int prefetch, boolean familyBatching) {
+        if (concurrency < 1 || prefetch < 1) {
+            throw new IllegalArgumentException("Concurrency and prefetch must be positive");
+        }
+        this.concurrency = concurrency;
+        this.prefetch = prefetch;
+        this.familyBatching = familyBatching;
+        this.output = new SubmissionPublisher<>(ForkJoinPool.commonPool(), prefetch);
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "integration-processor-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super List<Result>> subscriber) {
+        output.subscribe(subscriber);
+    }
+
+    /**
+     * Subscribes a consumer of result batches.
+     *
+     * @return a future completed when the stream ends
+     */
+    public CompletableFuture<Void> consume(Consumer<? super List<Result>> consumer) {
+        return output.consume(consumer);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        synchronized (this) {
+            if (upstream != null || finished) {
+                subscription.cancel();
+                return;
+            }
+            upstream = subscription;
+        }
+        subscription.request(prefetch);
+    }
+
+    @Override
+    public void onNext(List<Task.TaskData> batch) {
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            pending.add(batch);
+        }
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        synchronized (this) {
+            upstreamFailure = throwable;
+            upstreamDone = true;
+        }
+        tryFinish();
+    }
+
+    @Override
+    public void onComplete() {
+        synchronized (this) {
+            upstreamDone = true;
+        }
+        tryFinish();
+    }
+
+    private void drain() {
+        List<List<Task.TaskData>> started = new ArrayList<>();
+        synchronized (this) {
+            while (running < concurrency && !pending.isEmpty()) {
+                running++;
+                started.add(pending.poll());
+            }
+        }
+        for (List<Task.TaskData> batch : started) {
+            try {
+                workers.execute(() -> process(batch));
+            } catch (RejectedExecutionException e) {
+                // Closed concurrently, the batch is dropped together with the rest of the stream.
+                synchronized (this) {
+                    running--;
+                }
+            }
+        }
+    }
+
+    private void process(List<Task.TaskData> batch) {
+        List<Result> results = familyBatching && batch.size() > 1 ? integrateBatch(batch) : null;
+        if (results == null) {
+            results = new ArrayList<>(batch.size());
+            for (Task.TaskData data : batch) {
+                try {
+                    results.add(new Result(data, Functions.integrate(
+                            data.function(), data.leftBorder(), data.rightBorder(), data.step()), null));
+                } catch (RuntimeException e) {
+                    results.add(new Result(data, Double.NaN, e));
+                }
+            }
+        }
+        try {
+            output.submit(results);
+        } catch (IllegalStateException e) {
+            // Closed concurrently, nobody is waiting for the results any more.
+            return;
+        }
+        Flow.Subscription subscription;
+        synchronized (this) {
+            running--;
+            subscription = finished ? null : upstream;
+        }
+        if (subscription != null) {
+            subscription.request(1);
+        }
+        drain();
+        tryFinish();
+    }
+
+    // Returns null if some task fails, its failure is then reported by the task by task path.
+    private static List<Result> integrateBatch(List<Task.TaskData> batch) {
+        int count = batch.size();
+        Function[] functions = new Function[count];
+        double[] lefts = new double[count];
+        double[] rights = new double[count];
+        double[] steps = new double[count];
+        for (int i = 0; i < count; i++) {
+            Task.TaskData data = batch.get(i);
+            functions[i] = data.function();
+            lefts[i] = data.leftBorder();
+            rights[i] = data.rightBorder();
+            steps[i] = data.step();
+        }
+        double[] values;
+        try {
+            values = Functions.integrateBatch(functions, lefts, rights, steps);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        List<Result> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(new Result(batch.get(i), values[i], null));
+        }
+        return results;
+    }
+
+    private void tryFinish() {
+        Throwable failure;
+        synchronized (this) {
+            if (finished || !upstreamDone || running > 0 || !pending.isEmpty()) {
+                return;
+            }
+            finished = true;
+            failure = upstreamFailure;
+        }
+        if (failure == null) {
+            output.close();
+        } else {
+            output.closeExceptionally(failure);
+        }
+        workers.shutdown();
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getPrefetch() {
+        return prefetch;
+    }
+
+    public boolean isFamilyBatching() {
+        return familyBatching;
+    }
+
+    /**
+     * Cancels the upstream subscription, drops unprocessed batches and completes the subscribers.
+     */
+    @Override
+    public void close() {
+        Flow.Subscription subscription;
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            pending.clear();
+            subscription = upstream;
+        }
+        if (subscription != null) {
+            subscription.cancel();
+        }
+        workers.shutdownNow();
+        output.close();
+    }
+}
@@ -0,0 +1,115 @@
+package threads;
+
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Wire format shared by {@link IntegrationCoordinator} and {@link IntegrationWorker}.
+ * Every message is a frame: an int payload length followed by the payload.
+ * <ul>
+ *     <li>worker hello: int {@link #MAGIC}, int slots;</li>
+ *     <li>request: long id, double left, double right, double step, function descriptor;</li>
+ *     <li>response: long id, byte status, then double result for {@link #OK} or UTF message for {@link #FAILED},
+ *     see {@link #writeMessage}.</li>
+ * </ul>
+ */
+final class IntegrationProtocol {
+    static final int MAGIC = 0x494E5431;
+    static final byte OK = 0;
+    static final byte FAILED = 1;
+    private static final int MAX_FRAME = 64 << 20;
+    // writeUTF takes at most 65535 bytes and encodes a char in at most 3 of them.
+    private static final int MAX_MESSAGE_CHARS = 65535 / 3;
+
+    private IntegrationProtocol() {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    /**
+     * Writes the whole frame in a single channel write, so frames from different threads never interleave.
+     */
+    static void writeFrame(SocketChannel channel, byte[] payload) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + payload.length);
+        buffer.putInt(payload.length).put(payload).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Writes a failure message with {@link DataOutput#writeUTF}, cutting it to {@value #MAX_MESSAGE_CHARS} chars
+     * so that a long message can never make the write fail.
+     */
+    static void writeMessage(DataOutput out, String message) throws IOException {
+        if (message.length() > MAX_MESSAGE_CHARS) {
+            int end = MAX_MESSAGE_CHARS - 3;
+            if (Character.isHighSurrogate(message.charAt(end - 1))) {
+                end--;
+            }
+            message = message.substring(0, end) + "...";
+        }
+        out.writeUTF(message);
+    }
+
+    /**
+     * Returns null on a clean end of stream before the frame starts.
+     */
+    static byte[] readFrame(SocketChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        if (!readFully(channel, header, true)) {
+            return null;
+        }
+        int length = header.flip().getInt();
+        if (length < 0 || length > MAX_FRAME) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(channel, payload, false);
+        return payload.array();
+    }
+
+    private static boolean readFully(SocketChannel channel, ByteBuffer buffer, boolean eofAllowed) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (eofAllowed && buffer.position() == 0) {
+                    return false;
+                }
+                throw new EOFException("Connection closed in the middle of a frame");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses {@code unix:/path/to/socket} or {@code host:port}.
+     */
+    static SocketAddress parseAddress(String text) {
+        if (text.startsWith("unix:")) {
+            return UnixDomainSocketAddress.of(text.substring("unix:".length()));
+        }
+        int colon = text.lastIndexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("Address must be host:port or unix:path, got " + text);
+        }
+        return new InetSocketAddress(text.substring(0, colon), Integer.parseInt(text.substring(colon + 1)));
+    }
+
+    static String formatAddress(SocketAddress address) {
+        if (address instanceof UnixDomainSocketAddress unix) {
+            return "unix:" + unix.getPath();
+        }
+        InetSocketAddress inet = (InetSocketAddress) address;
+        return inet.getAddress().getHostAddress() + ":" + inet.getPort();
+    }
+
+    static Path socketPath(SocketAddress address) {
+        return address instanceof UnixDomainSocketAddress unix ? unix.getPath() : null;
+    }
+}
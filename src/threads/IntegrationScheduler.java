@@ -0,0 +1,201 @@
+package threads;
+
+import functions.Function;
+import functions.Functions;
+import functions.IntegrationControl;
+import functions.IntegrationResult;
+import functions.TabulatedFunction;
+import functions.meta.CachingFunction;
+import functions.meta.Composition;
+import functions.meta.Mult;
+import functions.meta.Power;
+import functions.meta.Scale;
+import functions.meta.Shift;
+import functions.meta.Sum;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs integration tasks on a pool of workers, cheapest expected task first, without starving expensive ones.
+ * <p>
+ * The cost of a task is its number of grid nodes, {@code floor((right - left) / step) + 1} plus the right border
+ * when the step does not divide the segment, times the number of nodes in its function tree. Costs are converted to expected nanoseconds with a rate measured on completed tasks.
+ * A task is ordered by the virtual deadline {@code arrival + stretch * expectedNanos}: cheap tasks overtake
+ * expensive ones, but once an expensive task has waited {@code stretch} times its own expected run time,
+ * newly arriving tasks no longer get ahead of it. A stretch of 0 degenerates to FIFO.
+ */
+public class IntegrationScheduler implements AutoCloseable {
+    private static final double INITIAL_NANOS_PER_UNIT = 20.0;
+    private static final double RATE_SMOOTHING = 0.05;
+
+    private static final class Job {
+        final Task.TaskData data;
+        final double cost;
+        final long sequence;
+        final long key;
+        final CompletableFuture<Double> result = new CompletableFuture<>();
+        final IntegrationControl control = new IntegrationControl();
+
+        Job(Task.TaskData data, double cost, long sequence, long key) {
+            this.data = data;
+            this.cost = cost;
+            this.sequence = sequence;
+            this.key = key;
+        }
+    }
+
+    private final double stretch;
+    private final PriorityBlockingQueue<Job> queue = new PriorityBlockingQueue<>(64, (first, second) -> {
+        int byKey = Long.compare(first.key, second.key);
+        return byKey != 0 ? byKey : Long.compare(first.sequence, second.sequence);
+    });
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile double nanosPerUnit = INITIAL_NANOS_PER_UNIT;
+    private volatile boolean closed;
+
+    /**
+     * @param workers number of worker threads
+     * @param stretch how many of its own expected run times a task may be overtaken by cheaper ones, 0 for FIFO
+     */
+    public IntegrationScheduler(int workers, double stretch) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Workers count must be positive");
+        }
+        if (!(stretch >= 0.0) || Double.isInfinite(stretch)) {
+            throw new IllegalArgumentException("Stretch must be finite and non-negative");
+        }
+        this.stretch = stretch;
+        for (int i = 0; i < workers; i++) {
+            Thread worker = new Thread(this::workLoop, "integration-scheduler-" + i);
+            worker.setDaemon(true);
+            this.workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Estimated cost of a task: the evaluations of the trapezoidal rule, one per grid node, weighted by tree size.
+     */
+    public static double estimateCost(Task.TaskData data) {
+        double length = data.rightBorder() - data.leftBorder();
+        double steps = Math.floor(length / data.step());
+        double nodes = steps + 1.0 + (steps * data.step() < length ? 1.0 : 0.0);
+        return nodes * treeSize(data.function());
+    }
+
+    private static int treeSize(Function function) {
+        if (function instanceof Shift shift) {
+            return 1 + treeSize(shift.getFunction());
+        } else if (function instanceof Scale scale) {
+            return 1 + treeSize(scale.getFunction());
+        } else if (function instanceof Power power) {
+            return 1 + treeSize(power.getBaseFunction());
+        } else if (function instanceof Sum sum) {
+            return 1 + treeSize(sum.getFirst()) + treeSize(sum.getSecond());
+        } else if (function instanceof Mult mult) {
+            return 1 + treeSize(mult.getFirst()) + treeSize(mult.getSecond());
+        } else if (function instanceof Composition composition) {
+            return 1 + treeSize(composition.getOuter()) + treeSize(composition.getInner());
+        } else if (function instanceof CachingFunction cached) {
+            return 1 + treeSize(cached.getFunction());
+        } else if (function instanceof TabulatedFunction tabulated) {
+            return 1 + 32 - Integer.numberOfLeadingZeros(tabulated.getPointsCount());
+        }
+        return 1;
+    }
+
+    /**
+     * Queues a task. Cancelling the returned future stops the task if it is already running.
+     *
+     * @throws IllegalArgumentException if the task or its function is null
+     */
+    public CompletableFuture<Double> submit(Task.TaskData data) {
+        if (data == null || data.function() == null) {
+            throw new IllegalArgumentException("Task data and its function must not be null");
+        }
+        double cost = estimateCost(data);
+        long arrival = System.nanoTime();
+        double penalty = stretch * cost * nanosPerUnit;
+        long key = arrival + (long) Math.min(penalty, Long.MAX_VALUE / 4.0);
+        Job job = new Job(data, cost, sequence.getAndIncrement(), key);
+        job.result.whenComplete((value, failure) -> {
+            if (failure instanceof CancellationException) {
+                job.control.cancel();
+            }
+        });
+        if (closed) {
+            job.result.completeExceptionally(new IllegalStateException("Scheduler is closed"));
+            return job.result;
+        }
+        queue.add(job);
+        if (closed && queue.remove(job)) {
+            job.result.completeExceptionally(new IllegalStateException("Scheduler is closed"));
+        }
+        return job.result;
+    }
+
+    private void workLoop() {
+        while (!closed) {
+            Job job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (job.result.isDone()) {
+                continue;
+            }
+            long start = System.nanoTime();
+            try {
+                Task.TaskData data = job.data;
+                IntegrationResult result = Functions.integrate(
+                        data.function(), data.leftBorder(), data.rightBorder(), data.step(), job.control);
+                if (result.isComplete()) {
+                    calibrate(job.cost, System.nanoTime() - start);
+                    job.result.complete(result.value());
+                } else if (!job.result.isDone()) {
+                    job.result.completeExceptionally(new CancellationException("Integration " + result.status()));
+                }
+            } catch (RuntimeException e) {
+                job.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    // Benign race: concurrent updates may lose a sample, which only slows down the averaging.
+    private void calibrate(double cost, long elapsed) {
+        if (cost > 0.0 && elapsed > 0) {
+            double sample = elapsed / cost;
+            nanosPerUnit += RATE_SMOOTHING * (sample - nanosPerUnit);
+        }
+    }
+
+    public double getNanosPerCostUnit() {
+        return nanosPerUnit;
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Stops the workers; queued tasks fail and running ones are cancelled.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        Job job;
+        while ((job = queue.poll()) != null) {
+            job.result.completeExceptionally(new IllegalStateException("Scheduler is closed"));
+        }
+    }
+}
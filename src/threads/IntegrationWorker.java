@@ -0,0 +1,125 @@
+package threads;
+
+import functions.Function;
+import functions.FunctionDescriptors;
+import functions.Functions;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Integration worker: connects to an {@link IntegrationCoordinator}, computes the integrals it receives
+ * on {@code slots} threads and sends the results back until the coordinator closes the connection.
+ * <p>
+ * Usage: {@code java -cp out threads.IntegrationWorker host:port|unix:path [slots]}.
+ */
+public class IntegrationWorker implements Runnable, Closeable {
+    private final SocketAddress address;
+    private final int slots;
+    private final Object writeLock = new Object();
+    private volatile SocketChannel channel;
+
+    public IntegrationWorker(SocketAddress address, int slots) {
+        if (address == null) {
+            throw new IllegalArgumentException("Address must not be null");
+        }
+        if (slots < 1) {
+            throw new IllegalArgumentException("slots must be positive");
+        }
+        this.address = address;
+        this.slots = slots;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: threads.IntegrationWorker host:port|unix:path [slots]");
+            System.exit(2);
+        }
+        int slots = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        new IntegrationWorker(IntegrationProtocol.parseAddress(args[0]), slots).run();
+    }
+
+    @Override
+    public void run() {
+        ExecutorService executor = Executors.newFixedThreadPool(slots, runnable -> {
+            Thread thread = new Thread(runnable, "integration-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (SocketChannel connected = address instanceof UnixDomainSocketAddress
+                ? SocketChannel.open(StandardProtocolFamily.UNIX)
+                : SocketChannel.open()) {
+            connected.connect(address);
+            channel = connected;
+            ByteArrayOutputStream hello = new ByteArrayOutputStream(8);
+            DataOutputStream helloOut = new DataOutputStream(hello);
+            helloOut.writeInt(IntegrationProtocol.MAGIC);
+            helloOut.writeInt(slots);
+            IntegrationProtocol.writeFrame(connected, hello.toByteArray());
+            byte[] frame;
+            while ((frame = IntegrationProtocol.readFrame(connected)) != null) {
+                byte[] request = frame;
+                executor.execute(() -> handle(connected, request));
+            }
+        } catch (IOException e) {
+            if (channel != null && channel.isOpen()) {
+                System.err.println("Integration worker stopped: " + e.getMessage());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void handle(SocketChannel connected, byte[] request) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(request));
+            long id = in.readLong();
+            double left = in.readDouble();
+            double right = in.readDouble();
+            double step = in.readDouble();
+            out.writeLong(id);
+            try {
+                Function function = FunctionDescriptors.read(in, in.available());
+                double result = Functions.integrate(function, left, right, step);
+                out.writeByte(IntegrationProtocol.OK);
+                out.writeDouble(result);
+            } catch (Throwable e) {
+                // Any failure must be reported, otherwise the coordinator waits for this task forever.
+                out.writeByte(IntegrationProtocol.FAILED);
+                IntegrationProtocol.writeMessage(out, String.valueOf(e.getMessage()));
+            }
+            synchronized (writeLock) {
+                IntegrationProtocol.writeFrame(connected, bytes.toByteArray());
+            }
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    /**
+     * Disconnects from the coordinator, which re-dispatches the unfinished tasks of this worker.
+     */
+    @Override
+    public void close() {
+        SocketChannel current = channel;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {
+                // The connection is already broken.
+            }
+        }
+    }
+}
@@ -1,14 +1,24 @@
 package threads;
 
-import functions.Functions;
+import functions.IntegrationResult;
+import functions.IntegrationResultCache;
 
 public class Integrator extends Thread {
     private final Task task;
     private final OnePlaceSemaphore semaphore;
+    private final TaskIntegrator integrator;
 
     public Integrator(Task task, OnePlaceSemaphore semaphore) {
+        this(task, semaphore, null);
+    }
+
+    /**
+     * @param cache shared result cache, or null to integrate every task from scratch
+     */
+    public Integrator(Task task, OnePlaceSemaphore semaphore, IntegrationResultCache cache) {
         this.task = task;
         this.semaphore = semaphore;
+        this.integrator = new TaskIntegrator(cache);
     }
 
     @Override
@@ -31,18 +41,17 @@ public class Integrator extends Thread {
                 i--;
                 continue;
             }
-            double result = Functions.integrate(
-                    data.function(),
-                    data.leftBorder(),
-                    data.rightBorder(),
-                    data.step()
-            );
+            IntegrationResult result = integrator.integrate(data);
+            if (!result.isComplete()) {
+                // The integration was stopped midway, its partial value is not worth reporting.
+                return;
+            }
             System.out.printf(
                     "Result %.4f %.4f %.6f %.6f%n",
                     data.leftBorder(),
                     data.rightBorder(),
                     data.step(),
-                    result
+                    result.value()
             );
 
             try {
@@ -0,0 +1,103 @@
+package threads;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative nanosecond values with a relative error below 1/64.
+ * Values under 128 are counted exactly, larger ones go to 64 linear sub-buckets per power of two.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int EXACT = SUB_BUCKETS * 2;
+    private static final int BUCKETS = EXACT + (63 - (SUB_BUCKET_BITS + 1)) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    static int indexOf(long value) {
+        if (value < EXACT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return EXACT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    static long lowestValueAt(int index) {
+        if (index < EXACT) {
+            return index;
+        }
+        int exponent = SUB_BUCKET_BITS + 1 + (index - EXACT) / SUB_BUCKETS;
+        long mantissa = SUB_BUCKETS + (index - EXACT) % SUB_BUCKETS;
+        return mantissa << (exponent - SUB_BUCKET_BITS);
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            throw new IllegalArgumentException("Value must be non-negative");
+        }
+        counts.incrementAndGet(indexOf(nanos));
+        count.increment();
+        sum.add(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long total = count.sum();
+        return total == 0 ? Double.NaN : (double) sum.sum() / total;
+    }
+
+    /**
+     * @param percentile value in [0; 100]
+     * @return the highest value equivalent to the recorded one at that rank, 0 when the histogram is empty
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (!(percentile >= 0.0 && percentile <= 100.0)) {
+            throw new IllegalArgumentException("Percentile must be within [0; 100]");
+        }
+        long total = count.sum();
+        if (total == 0) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                long upper = i + 1 < BUCKETS ? lowestValueAt(i + 1) - 1 : Long.MAX_VALUE;
+                return Math.min(upper, max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0L);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0L);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "count=%d mean=%.1fus p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+                getCount(), getMean() / 1e3, getValueAtPercentile(50.0) / 1e3, getValueAtPercentile(99.0) / 1e3,
+                getValueAtPercentile(99.9) / 1e3, getMax() / 1e3);
+    }
+}
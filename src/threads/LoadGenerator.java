@@ -0,0 +1,265 @@
+package threads;
+
+import functions.FunctionDescriptors;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for integration services.
+ * <p>
+ * A run is driven by a schedule: tasks with the offsets at which they are meant to be sent. Tasks are submitted
+ * at those offsets no matter how many earlier ones are still in flight, and latency is measured from the intended
+ * send time rather than from the actual one. When the target or the generator itself falls behind, the delay is
+ * therefore charged to the latency instead of silently lowering the offered load (coordinated omission).
+ * Schedules are produced from a seeded {@link Workload} and can be recorded to a file and replayed later.
+ * <p>
+ * Usage: {@code java threads.LoadGenerator <rate/s> <count> [--seed n] [--poisson] [--workers n]
+ * [--record file | --replay file [--retime]]}, which runs the schedule against a local {@link IntegrationScheduler}.
+ * A replayed schedule keeps its recorded offsets unless {@code --retime} respaces it to the given rate.
+ */
+public class LoadGenerator {
+    private static final int MAGIC = 0x4C47454E;
+    private static final int FORMAT_VERSION = 1;
+
+    @FunctionalInterface
+    public interface Target {
+        CompletableFuture<Double> submit(Task.TaskData data);
+    }
+
+    public record ScheduledTask(long offsetNanos, Task.TaskData data) {
+    }
+
+    /**
+     * @param latency     time from the intended send to completion, corrected for coordinated omission
+     * @param serviceTime time from the actual send to completion, what a closed-loop client would report
+     * @param maxLagNanos the largest delay between the intended and the actual send
+     */
+    public record Report(long sent, long completed, long failed, long pending, long durationNanos, long maxLagNanos,
+                         LatencyHistogram latency, LatencyHistogram serviceTime) {
+        public double throughput() {
+            return durationNanos == 0 ? 0.0 : completed * 1e9 / durationNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "sent=%d completed=%d failed=%d pending=%d throughput=%.1f/s maxLag=%.1fus%n"
+                            + "latency: %s%nservice: %s",
+                    sent, completed, failed, pending, throughput(), maxLagNanos / 1e3, latency, serviceTime);
+        }
+    }
+
+    private LoadGenerator() {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    /**
+     * Draws {@code count} tasks from the workload and spaces them to the given rate, evenly or as a Poisson process.
+     * Task versions are their indexes in the schedule.
+     */
+    public static List<ScheduledTask> schedule(Workload workload, long seed, int count, double ratePerSecond,
+                                               boolean poisson) {
+        Objects.requireNonNull(workload);
+        if (count < 0) {
+            throw new IllegalArgumentException("Count must be non-negative");
+        }
+        checkRate(ratePerSecond);
+        Random random = new Random(seed);
+        List<ScheduledTask> schedule = new ArrayList<>(count);
+        double interval = 1e9 / ratePerSecond;
+        double offset = 0.0;
+        for (int i = 0; i < count; i++) {
+            Task.TaskData data = workload.next(random);
+            schedule.add(new ScheduledTask((long) offset, new Task.TaskData(
+                    data.function(), data.leftBorder(), data.rightBorder(), data.step(), i)));
+            offset += poisson ? -Math.log(1.0 - random.nextDouble()) * interval : interval;
+        }
+        return schedule;
+    }
+
+    /**
+     * Keeps the tasks of a schedule and respaces them to another rate, so one recorded stream can be
+     * replayed at several load levels.
+     */
+    public static List<ScheduledTask> retime(List<ScheduledTask> schedule, double ratePerSecond, boolean poisson,
+                                             long seed) {
+        checkRate(ratePerSecond);
+        Random random = new Random(seed);
+        List<ScheduledTask> result = new ArrayList<>(schedule.size());
+        double interval = 1e9 / ratePerSecond;
+        double offset = 0.0;
+        for (ScheduledTask task : schedule) {
+            result.add(new ScheduledTask((long) offset, task.data()));
+            offset += poisson ? -Math.log(1.0 - random.nextDouble()) * interval : interval;
+        }
+        return result;
+    }
+
+    private static void checkRate(double ratePerSecond) {
+        if (!(ratePerSecond > 0.0) || Double.isInfinite(ratePerSecond)) {
+            throw new IllegalArgumentException("Rate must be positive and finite");
+        }
+    }
+
+    public static void write(List<ScheduledTask> schedule, Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(schedule.size());
+            for (ScheduledTask task : schedule) {
+                Task.TaskData data = task.data();
+                out.writeLong(task.offsetNanos());
+                out.writeLong(data.version());
+                out.writeDouble(data.leftBorder());
+                out.writeDouble(data.rightBorder());
+                out.writeDouble(data.step());
+                FunctionDescriptors.write(data.function(), out);
+            }
+        }
+    }
+
+    public static List<ScheduledTask> read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a recorded schedule: " + file);
+            }
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported schedule format version: " + version);
+            }
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("Corrupted schedule header");
+            }
+            List<ScheduledTask> schedule = new ArrayList<>(Math.min(count, 1 << 16));
+            for (int i = 0; i < count; i++) {
+                long offset = in.readLong();
+                long taskVersion = in.readLong();
+                double left = in.readDouble();
+                double right = in.readDouble();
+                double step = in.readDouble();
+                schedule.add(new ScheduledTask(offset,
+                        new Task.TaskData(FunctionDescriptors.read(in), left, right, step, taskVersion)));
+            }
+            return schedule;
+        }
+    }
+
+    /**
+     * Sends the schedule to the target from the calling thread and waits up to {@code timeout} after the last
+     * send for outstanding results. Tasks still running then are reported as pending.
+     */
+    public static Report run(List<ScheduledTask> schedule, Target target, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        Objects.requireNonNull(target);
+        LatencyHistogram latency = new LatencyHistogram();
+        LatencyHistogram serviceTime = new LatencyHistogram();
+        AtomicLong completed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        List<CompletableFuture<?>> outstanding = new ArrayList<>(schedule.size());
+        long maxLag = 0L;
+        long start = System.nanoTime();
+        for (ScheduledTask task : schedule) {
+            long intended = start + task.offsetNanos();
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            maxLag = Math.max(maxLag, now - intended);
+            CompletableFuture<Double> result;
+            try {
+                result = target.submit(task.data());
+            } catch (RuntimeException e) {
+                failed.incrementAndGet();
+                continue;
+            }
+            long sent = System.nanoTime();
+            outstanding.add(result.handle((value, error) -> {
+                long end = System.nanoTime();
+                if (error == null) {
+                    latency.record(end - intended);
+                    serviceTime.record(end - sent);
+                    completed.incrementAndGet();
+                } else {
+                    failed.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        try {
+            CompletableFuture.allOf(outstanding.toArray(new CompletableFuture<?>[0])).get(timeout, unit);
+        } catch (ExecutionException | TimeoutException ignored) {
+            // Failures are counted per task, tasks still running are reported as pending.
+        }
+        long duration = System.nanoTime() - start;
+        long done = completed.get();
+        long lost = failed.get();
+        return new Report(schedule.size(), done, lost, schedule.size() - done - lost, duration, maxLag,
+                latency, serviceTime);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: LoadGenerator <rate/s> <count> [--seed n] [--poisson] [--workers n]"
+                    + " [--record file | --replay file [--retime]]");
+            System.exit(2);
+        }
+        double rate = Double.parseDouble(args[0]);
+        int count = Integer.parseInt(args[1]);
+        long seed = 1L;
+        boolean poisson = false;
+        int workers = Runtime.getRuntime().availableProcessors();
+        Path record = null;
+        Path replay = null;
+        boolean retime = false;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--poisson" -> poisson = true;
+                case "--workers" -> workers = Integer.parseInt(args[++i]);
+                case "--record" -> record = Path.of(args[++i]);
+                case "--replay" -> replay = Path.of(args[++i]);
+                case "--retime" -> retime = true;
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        List<ScheduledTask> schedule;
+        if (replay == null) {
+            schedule = schedule(Workload.logarithms(), seed, count, rate, poisson);
+        } else {
+            schedule = read(replay);
+            if (retime) {
+                schedule = retime(schedule, rate, poisson, seed);
+            }
+        }
+        if (schedule.size() > count) {
+            schedule = schedule.subList(0, count);
+        }
+        if (record != null) {
+            write(schedule, record);
+        }
+        try (IntegrationScheduler scheduler = new IntegrationScheduler(workers, 4.0)) {
+            System.out.println(run(schedule, scheduler::submit, 1, TimeUnit.MINUTES));
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package threads;
+
+import functions.Function;
+import functions.FunctionDescriptors;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Bounded queue of integration tasks in a memory-mapped file, shared by one producer process
+ * and any number of consumer processes on the same host.
+ * <p>
+ * Every slot has a sequence stamp. For position {@code p} the producer waits until the stamp of slot
+ * {@code p % slots} equals {@code p}, writes the task in place and publishes it with a release store of {@code p + 1}.
+ * A consumer claims position {@code c} by a CAS on the shared consumer cursor once the stamp reads {@code c + 1},
+ * decodes the task straight from the mapping and frees the slot with a release store of {@code c + slots}.
+ * <p>
+ * Crash recovery: a slot that the producer wrote only partially is never published, and a restarted producer
+ * continues from the cursor in the header, skipping positions that were published but not yet recorded there.
+ * Each payload carries a CRC32, so a torn slot that survived a system crash is dropped and counted
+ * instead of being decoded. A consumer that dies between claiming and freeing a slot loses that task
+ * and blocks the producer on that slot; the claim window covers decoding only, the integration runs after the free.
+ */
+public class MappedTaskRing implements Closeable {
+    private static final int MAGIC = 0x52494E47;
+    private static final int FORMAT_VERSION = 1;
+    private static final int CACHE_LINE = 64;
+    private static final int PRODUCER_CURSOR = CACHE_LINE;
+    private static final int CONSUMER_CURSOR = 2 * CACHE_LINE;
+    private static final int SLOTS_OFFSET = 3 * CACHE_LINE;
+    private static final int SLOT_HEADER = 16;
+    private static final int SPINS = 100;
+    private static final long PARK_NANOS = 50_000L;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int slots;
+    private final int slotSize;
+    private final int stride;
+    private final CRC32 producerCrc = new CRC32();
+    private final CRC32 consumerCrc = new CRC32();
+    private long producerPosition = -1;
+    private long corrupted;
+
+    private MappedTaskRing(FileChannel channel, MappedByteBuffer buffer, int slots, int slotSize) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.slots = slots;
+        this.slotSize = slotSize;
+        this.stride = strideFor(slotSize);
+    }
+
+    private static int strideFor(int slotSize) {
+        return (SLOT_HEADER + slotSize + CACHE_LINE - 1) / CACHE_LINE * CACHE_LINE;
+    }
+
+    /**
+     * Opens the ring in {@code file}, creating and formatting it if the file is new.
+     * An existing ring must have been created with the same geometry.
+     *
+     * @param slots    capacity in tasks
+     * @param slotSize maximum encoded task size in bytes: 24 bytes of borders plus the function descriptor
+     */
+    public static MappedTaskRing open(Path file, int slots, int slotSize) throws IOException {
+        if (slots < 1 || slotSize < 32) {
+            throw new IllegalArgumentException("Ring needs at least one slot of at least 32 bytes");
+        }
+        long size = SLOTS_OFFSET + (long) slots * strideFor(slotSize);
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Ring does not fit into a single mapping");
+        }
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer;
+            // The lock makes formatting atomic for processes opening a new file at the same time.
+            FileLock lock = channel.lock();
+            try {
+                boolean fresh = channel.size() == 0;
+                if (!fresh && channel.size() != size) {
+                    throw new IOException("Ring file has size " + channel.size() + ", expected " + size);
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.order(ByteOrder.nativeOrder());
+                if (fresh) {
+                    format(buffer, slots, slotSize);
+                } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION
+                        || buffer.getInt(8) != slots || buffer.getInt(12) != slotSize) {
+                    throw new IOException("File is not a task ring with " + slots + " slots of " + slotSize + " bytes");
+                }
+            } finally {
+                lock.release();
+            }
+            return new MappedTaskRing(channel, buffer, slots, slotSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static void format(MappedByteBuffer buffer, int slots, int slotSize) {
+        int stride = strideFor(slotSize);
+        for (int i = 0; i < slots; i++) {
+            LONGS.setRelease(buffer, SLOTS_OFFSET + i * stride, (long) i);
+        }
+        LONGS.setRelease(buffer, PRODUCER_CURSOR, 0L);
+        LONGS.setRelease(buffer, CONSUMER_CURSOR, 0L);
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.putInt(8, slots);
+        buffer.putInt(12, slotSize);
+        buffer.putInt(0, MAGIC);
+        buffer.force();
+    }
+
+    private int slotOffset(long position) {
+        return SLOTS_OFFSET + (int) (position % slots) * stride;
+    }
+
+    /**
+     * Enqueues a task without waiting. Only one producer may use a ring at a time.
+     *
+     * @return false if the ring is full
+     * @throws IllegalArgumentException if the task does not fit into a slot or the function has no descriptor
+     */
+    public synchronized boolean offer(Function function, double leftBorder, double rightBorder, double step) {
+        if (function == null) {
+            throw new IllegalArgumentException("Function must not be null");
+        }
+        if (producerPosition < 0) {
+            producerPosition = recoverProducerPosition();
+        }
+        long position = producerPosition;
+        int offset = slotOffset(position);
+        if ((long) LONGS.getAcquire(buffer, offset) != position) {
+            return false;
+        }
+        ByteBuffer payload = buffer.slice(offset + SLOT_HEADER, slotSize).order(ByteOrder.nativeOrder());
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferOutputStream(payload));
+            out.writeDouble(leftBorder);
+            out.writeDouble(rightBorder);
+            out.writeDouble(step);
+            FunctionDescriptors.write(function, out);
+        } catch (BufferOverflowException e) {
+            throw new IllegalArgumentException("Task does not fit into a slot of " + slotSize + " bytes", e);
+        } catch (IOException e) {
+            throw new AssertionError("Buffer stream cannot fail", e);
+        }
+        int length = payload.position();
+        producerCrc.reset();
+        producerCrc.update(payload.flip());
+        buffer.putInt(offset + 8, length);
+        buffer.putInt(offset + 12, (int) producerCrc.getValue());
+        LONGS.setRelease(buffer, offset, position + 1);
+        producerPosition = position + 1;
+        LONGS.setRelease(buffer, PRODUCER_CURSOR, producerPosition);
+        return true;
+    }
+
+    /**
+     * Skips positions that a crashed producer published before it could advance the header cursor.
+     */
+    private long recoverProducerPosition() {
+        long position = (long) LONGS.getAcquire(buffer, PRODUCER_CURSOR);
+        while ((long) LONGS.getAcquire(buffer, slotOffset(position)) > position) {
+            position++;
+        }
+        return position;
+    }
+
+    public void put(Function function, double leftBorder, double rightBorder, double step) throws InterruptedException {
+        for (int attempt = 0; !offer(function, leftBorder, rightBorder, step); attempt++) {
+            backOff(attempt);
+        }
+    }
+
+    /**
+     * Dequeues a task without waiting; safe to call from any number of threads and processes.
+     * The version of the returned data is the position of the task in the ring.
+     *
+     * @return the task, or null if the ring is empty
+     */
+    public Task.TaskData poll() {
+        while (true) {
+            long position = (long) LONGS.getAcquire(buffer, CONSUMER_CURSOR);
+            int offset = slotOffset(position);
+            long stamp = (long) LONGS.getAcquire(buffer, offset);
+            if (stamp < position + 1) {
+                return null;
+            }
+            if (stamp > position + 1 || !LONGS.compareAndSet(buffer, CONSUMER_CURSOR, position, position + 1)) {
+                continue;
+            }
+            Task.TaskData data = read(offset, position);
+            LONGS.setRelease(buffer, offset, position + slots);
+            if (data != null) {
+                return data;
+            }
+        }
+    }
+
+    public Task.TaskData take() throws InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            Task.TaskData data = poll();
+            if (data != null) {
+                return data;
+            }
+            backOff(attempt);
+        }
+    }
+
+    private Task.TaskData read(int offset, long position) {
+        int length = buffer.getInt(offset + 8);
+        int crc = buffer.getInt(offset + 12);
+        if (length < 24 || length > slotSize) {
+            countCorrupted();
+            return null;
+        }
+        ByteBuffer payload = buffer.slice(offset + SLOT_HEADER, length).order(ByteOrder.nativeOrder());
+        synchronized (consumerCrc) {
+            consumerCrc.reset();
+            consumerCrc.update(payload.duplicate());
+            if ((int) consumerCrc.getValue() != crc) {
+                countCorrupted();
+                return null;
+            }
+        }
+        try {
+            DataInputStream in = new DataInputStream(new BufferInputStream(payload));
+            double leftBorder = in.readDouble();
+            double rightBorder = in.readDouble();
+            double step = in.readDouble();
+            return new Task.TaskData(FunctionDescriptors.read(in, length - 24), leftBorder, rightBorder, step,
+                    position);
+        } catch (IOException e) {
+            countCorrupted();
+            return null;
+        }
+    }
+
+    private synchronized void countCorrupted() {
+        corrupted++;
+    }
+
+    /**
+     * Number of slots this instance dropped because their content failed validation.
+     */
+    public synchronized long getCorruptedCount() {
+        return corrupted;
+    }
+
+    public int getCapacity() {
+        return slots;
+    }
+
+    /**
+     * Approximate number of published tasks not yet claimed by consumers.
+     */
+    public long size() {
+        long consumed = (long) LONGS.getAcquire(buffer, CONSUMER_CURSOR);
+        long produced = (long) LONGS.getAcquire(buffer, PRODUCER_CURSOR);
+        return Math.max(0, produced - consumed);
+    }
+
+    private static void backOff(int attempt) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (attempt < SPINS) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static final class BufferOutputStream extends OutputStream {
+        private final ByteBuffer target;
+
+        BufferOutputStream(ByteBuffer target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) {
+            target.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            target.put(bytes, offset, length);
+        }
+    }
+
+    private static final class BufferInputStream extends InputStream {
+        private final ByteBuffer source;
+
+        BufferInputStream(ByteBuffer source) {
+            this.source = source;
+        }
+
+        @Override
+        public int read() {
+            return source.hasRemaining() ? source.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!source.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, source.remaining());
+            source.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
@@ -7,8 +7,8 @@ public class OnePlaceSemaphore {
     private boolean hasValue;
 
     public synchronized void beginWrite() throws InterruptedException {
-        while (hasValue) {
-            wait();
+        if (hasValue) {
+            await(false, "OnePlaceSemaphore.beginWrite");
         }
     }
 
@@ -18,8 +18,8 @@ public class OnePlaceSemaphore {
     }
 
     public synchronized void beginRead() throws InterruptedException {
-        while (!hasValue) {
-            wait();
+        if (!hasValue) {
+            await(true, "OnePlaceSemaphore.beginRead");
         }
     }
 
@@ -27,4 +27,20 @@ public class OnePlaceSemaphore {
         hasValue = false;
         notifyAll();
     }
+
+    private void await(boolean expected, String operation) throws InterruptedException {
+        HandoffWaitEvent event = new HandoffWaitEvent();
+        event.begin();
+        try {
+            while (hasValue != expected) {
+                wait();
+            }
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.commit();
+            }
+        }
+    }
 }
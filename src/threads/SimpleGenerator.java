@@ -1,35 +1,40 @@
 package threads;
 
-import functions.Function;
-import functions.basic.Log;
-
+import java.util.Objects;
 import java.util.Random;
 
 public class SimpleGenerator implements Runnable {
     private final Task task;
-    private final Random random = new Random();
+    private final Random random;
+    private final Workload workload;
 
     public SimpleGenerator(Task task) {
+        this(task, new Random(), Workload.logarithms());
+    }
+
+    /**
+     * @param random   source of randomness for the workload, pass a seeded one for a reproducible stream
+     * @param workload distribution of the generated tasks
+     */
+    public SimpleGenerator(Task task, Random random, Workload workload) {
         this.task = task;
+        this.random = Objects.requireNonNull(random);
+        this.workload = Objects.requireNonNull(workload);
     }
 
     @Override
     public void run() {
         for (int i = 0; i < task.getTasksCount(); i++) {
-            double base = 1.0 + random.nextDouble() * 9.0;
-            Function function = new Log(base);
-            double left = Math.max(1e-3, random.nextDouble() * 100.0); // clamp to stay inside log domain
-            double right = 100.0 + random.nextDouble() * 100.0;
-            double step = Math.max(1e-3, random.nextDouble()); // avoid zero step
+            Task.TaskData data = workload.next(random);
 
             // Single synchronized block keeps parameters consistent.
             try {
-                task.produce(function, left, right, step);
+                task.produce(data.function(), data.leftBorder(), data.rightBorder(), data.step());
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 return;
             }
-            System.out.printf("Source %.4f %.4f %.6f%n", left, right, step);
+            System.out.printf("Source %.4f %.4f %.6f%n", data.leftBorder(), data.rightBorder(), data.step());
         }
     }
 }
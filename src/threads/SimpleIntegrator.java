@@ -1,12 +1,22 @@
 package threads;
 
-import functions.Functions;
+import functions.IntegrationResult;
+import functions.IntegrationResultCache;
 
 public class SimpleIntegrator implements Runnable {
     private final Task task;
+    private final TaskIntegrator integrator;
 
     public SimpleIntegrator(Task task) {
+        this(task, null);
+    }
+
+    /**
+     * @param cache shared result cache, or null to integrate every task from scratch
+     */
+    public SimpleIntegrator(Task task, IntegrationResultCache cache) {
         this.task = task;
+        this.integrator = new TaskIntegrator(cache);
     }
 
     @Override
@@ -16,18 +26,17 @@ public class SimpleIntegrator implements Runnable {
             if (data == null) {
                 return;
             }
-            double result = Functions.integrate(
-                    data.function(),
-                    data.leftBorder(),
-                    data.rightBorder(),
-                    data.step()
-            );
+            IntegrationResult result = integrator.integrate(data);
+            if (!result.isComplete()) {
+                // The integration was stopped midway, its partial value is not worth reporting.
+                return;
+            }
             System.out.printf(
                     "Result %.4f %.4f %.6f %.6f%n",
                     data.leftBorder(),
                     data.rightBorder(),
                     data.step(),
-                    result
+                    result.value()
             );
         }
     }
@@ -23,8 +23,8 @@ public class Task {
     }
 
     public synchronized void produce(Function function, double leftBorder, double rightBorder, double step) throws InterruptedException {
-        while (ready) {
-            wait();
+        if (ready) {
+            awaitReady(false, "Task.produce");
         }
         updateRaw(function, leftBorder, rightBorder, step);
         ready = true;
@@ -32,8 +32,8 @@ public class Task {
     }
 
     public synchronized TaskData consume() throws InterruptedException {
-        while (!ready) {
-            wait();
+        if (!ready) {
+            awaitReady(true, "Task.consume");
         }
         TaskData data = new TaskData(function, leftBorder, rightBorder, step, version);
         ready = false;
@@ -41,6 +41,23 @@ public class Task {
         return data;
     }
 
+    // Only reached when the caller has to wait, so the uncontended path creates no event.
+    private void awaitReady(boolean expected, String operation) throws InterruptedException {
+        HandoffWaitEvent event = new HandoffWaitEvent();
+        event.begin();
+        try {
+            while (ready != expected) {
+                wait();
+            }
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.commit();
+            }
+        }
+    }
+
     private void updateRaw(Function function, double leftBorder, double rightBorder, double step) {
         this.function = function;
         this.leftBorder = leftBorder;
@@ -0,0 +1,32 @@
+package threads;
+
+import functions.Functions;
+import functions.IntegrationControl;
+import functions.IntegrationResult;
+import functions.IntegrationResultCache;
+
+/**
+ * Integration of a task shared by {@link Integrator} and {@link SimpleIntegrator}.
+ */
+final class TaskIntegrator {
+    private final IntegrationResultCache cache;
+    private final IntegrationControl control = new IntegrationControl();
+
+    /**
+     * @param cache shared result cache, or null to integrate every task from scratch
+     */
+    TaskIntegrator(IntegrationResultCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Stops about a thousand steps after an interrupt instead of finishing a long integration,
+     * the result is then incomplete.
+     */
+    IntegrationResult integrate(Task.TaskData data) {
+        if (cache == null) {
+            return Functions.integrate(data.function(), data.leftBorder(), data.rightBorder(), data.step(), control);
+        }
+        return cache.integrate(data.function(), data.leftBorder(), data.rightBorder(), data.step(), control);
+    }
+}
@@ -0,0 +1,86 @@
+package threads;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * Head of a {@link java.util.concurrent.Flow} integration pipeline: collects tasks into batches and publishes them.
+ * <p>
+ * Publishing blocks while a subscriber has {@code maxBufferedBatches} batches it has not requested yet,
+ * so producers are throttled by downstream demand instead of a one-place handshake.
+ */
+public class TaskPublisher extends SubmissionPublisher<List<Task.TaskData>> {
+    private final int batchSize;
+    private List<Task.TaskData> batch;
+
+    public TaskPublisher(int batchSize) {
+        this(batchSize, Flow.defaultBufferSize());
+    }
+
+    public TaskPublisher(int batchSize, int maxBufferedBatches) {
+        super(ForkJoinPool.commonPool(), maxBufferedBatches);
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    /**
+     * Adds a task to the current batch and publishes the batch once it is full.
+     *
+     * @throws IllegalArgumentException if the task or its function is null
+     * @throws IllegalStateException    if the publisher is closed
+     */
+    public synchronized void publish(Task.TaskData data) {
+        if (data == null || data.function() == null) {
+            throw new IllegalArgumentException("Task data and its function must not be null");
+        }
+        batch.add(data);
+        if (batch.size() == batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Publishes {@code count} tasks drawn from the workload, numbering them by their position in the stream.
+     */
+    public void publish(Workload workload, Random random, int count) {
+        Objects.requireNonNull(workload);
+        Objects.requireNonNull(random);
+        for (int i = 0; i < count; i++) {
+            Task.TaskData data = workload.next(random);
+            publish(new Task.TaskData(data.function(), data.leftBorder(), data.rightBorder(), data.step(), i));
+        }
+    }
+
+    /**
+     * Publishes the current batch even if it is not full.
+     */
+    public synchronized void flush() {
+        if (!batch.isEmpty()) {
+            submit(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Publishes the remaining tasks and completes the subscribers.
+     */
+    @Override
+    public void close() {
+        if (!isClosed()) {
+            flush();
+        }
+        super.close();
+    }
+}
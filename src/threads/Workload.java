@@ -0,0 +1,78 @@
+package threads;
+
+import functions.Function;
+import functions.basic.Log;
+
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Source of integration tasks. All randomness comes from the passed {@link Random},
+ * so a workload driven by a seeded generator always produces the same stream.
+ */
+@FunctionalInterface
+public interface Workload {
+    Task.TaskData next(Random random);
+
+    @FunctionalInterface
+    interface FunctionSampler {
+        Function sample(Random random);
+    }
+
+    @FunctionalInterface
+    interface DoubleSampler {
+        double sample(Random random);
+
+        static DoubleSampler constant(double value) {
+            return random -> value;
+        }
+
+        static DoubleSampler uniform(double from, double to) {
+            if (!(from <= to)) {
+                throw new IllegalArgumentException("Invalid range");
+            }
+            return random -> from + random.nextDouble() * (to - from);
+        }
+
+        /**
+         * Uniform in log scale, suitable for steps and widths spanning several orders of magnitude.
+         */
+        static DoubleSampler logUniform(double from, double to) {
+            if (!(from > 0.0 && from <= to)) {
+                throw new IllegalArgumentException("Invalid range");
+            }
+            double low = Math.log(from);
+            double high = Math.log(to);
+            return random -> Math.exp(low + random.nextDouble() * (high - low));
+        }
+    }
+
+    /**
+     * Tasks over {@code [left; left + width]} with independently sampled function, left border, width and step.
+     */
+    static Workload of(FunctionSampler functions, DoubleSampler lefts, DoubleSampler widths, DoubleSampler steps) {
+        Objects.requireNonNull(functions);
+        Objects.requireNonNull(lefts);
+        Objects.requireNonNull(widths);
+        Objects.requireNonNull(steps);
+        return random -> {
+            Function function = functions.sample(random);
+            double left = lefts.sample(random);
+            double right = left + widths.sample(random);
+            return new Task.TaskData(function, left, right, steps.sample(random), 0L);
+        };
+    }
+
+    /**
+     * The distribution used by {@link Generator} and {@link SimpleGenerator}.
+     */
+    static Workload logarithms() {
+        return random -> {
+            double base = 1.0 + random.nextDouble() * 9.0;
+            double left = Math.max(1e-3, random.nextDouble() * 100.0); // clamp to stay inside log domain
+            double right = 100.0 + random.nextDouble() * 100.0;
+            double step = Math.max(1e-3, random.nextDouble()); // avoid zero step
+            return new Task.TaskData(new Log(base), left, right, step, 0L);
+        };
+    }
+}